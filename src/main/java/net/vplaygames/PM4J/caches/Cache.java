@@ -15,9 +15,23 @@
  */
 package net.vplaygames.PM4J.caches;
 
+import net.vplaygames.PM4J.core.Metrics;
 import net.vplaygames.PM4J.core.Util;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Represents a Cache which stores data in the form of String-Object Mappings.
@@ -33,15 +47,419 @@ import java.util.HashMap;
  */
 public class Cache<T> extends HashMap<String, T> {
     boolean rta = true;
+    private Type type;
+    private PolicyState<T> policy;
 
     @Override
     public T get(Object key) {
-        return super.get(rta ? keySet().stream().filter(k -> equals(k, (String) key)).findFirst().orElse(null) : key);
+        Object actual = rta ? super.keySet().stream().filter(k -> equals(k, (String) key)).findFirst().orElse(null) : key;
+        T tor = super.get(actual);
+        if (policy != null && key instanceof String) {
+            policy.recordLookup((String) key);
+            if (tor != null && expire((String) actual)) {
+                tor = null;
+            } else if (tor != null) {
+                policy.onRead((String) actual);
+            }
+        }
+        if (Metrics.isEnabled() && getType() != null)
+            Metrics.getInstance().cacheLookup(type, tor != null);
+        return tor;
+    }
+
+    /**
+     * Returns the value to which the given key is mapped, found the way {@link #get(Object)} finds it,
+     * but without the lookup being reported to the {@link Metrics} or counted by the policy.
+     * The entities use it to find the entries they add themselves to, so that only the lookups of the users are measured.
+     *
+     * @param key the key whose value is to be returned
+     * @return the value to which the given key is mapped, {@code null} if there is none
+     */
+    public T getQuietly(String key) {
+        String actual = rta ? super.keySet().stream().filter(k -> equals(k, key)).findFirst().orElse(null) : key;
+        return actual == null || expire(actual) ? null : super.get(actual);
+    }
+
+    /**
+     * Looks up many keys at once, the way {@link #get(Object)} does, but normalizing each key only once
+     * and going over this cache only once instead of once for each key.
+     *
+     * @param keys the keys to look up
+     * @return the entries found and the keys missing
+     */
+    public Lookup<T> getAll(Collection<String> keys) {
+        Map<String, String> actual = resolve(keys);
+        Map<String, T> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null || found.containsKey(key) || missing.contains(key)) continue;
+            String a = actual.get(key);
+            T value = super.get(a);
+            if (policy != null) {
+                policy.recordLookup(key);
+                if (value != null && expire(a)) {
+                    value = null;
+                } else if (value != null) {
+                    policy.onRead(a);
+                }
+            }
+            if (Metrics.isEnabled() && getType() != null)
+                Metrics.getInstance().cacheLookup(type, value != null);
+            if (value != null) found.put(key, value);
+            else missing.add(key);
+        }
+        return new Lookup<>(found, missing);
+    }
+
+    /**
+     * Returns true if all the given keys are present in this cache, the way {@link #containsKey(Object)} finds them,
+     * going over this cache only once.
+     *
+     * @param keys the keys to look up
+     * @return true if all the given keys are present in this cache, false otherwise
+     */
+    public boolean containsAll(Collection<String> keys) {
+        Map<String, String> actual = resolve(keys);
+        boolean tor = true;
+        for (String key : keys) {
+            String a = key == null ? null : actual.get(key);
+            boolean present = a != null && super.containsKey(a) && !expire(a);
+            if (Metrics.isEnabled() && getType() != null)
+                Metrics.getInstance().cacheLookup(type, present);
+            tor &= present;
+        }
+        return tor;
+    }
+
+    // maps each of the given keys to the key it is stored under, leaving out the keys not present
+    private Map<String, String> resolve(Collection<String> keys) {
+        Map<String, String> tor = new HashMap<>();
+        if (!rta) {
+            for (String key : keys)
+                if (key != null && super.containsKey(key)) tor.put(key, key);
+            return tor;
+        }
+        Map<String, List<String>> byNormal = new HashMap<>();
+        for (String key : keys)
+            if (key != null) byNormal.computeIfAbsent(normalize(key), k -> new ArrayList<>(1)).add(key);
+        for (String k : super.keySet()) {
+            if (byNormal.isEmpty()) break;
+            List<String> requested = byNormal.remove(k == null ? null : normalize(k));
+            if (requested != null)
+                for (String key : requested) tor.put(key, k);
+        }
+        return tor;
+    }
+
+    private static String normalize(String key) {
+        return Util.reduceToAlphanumeric(key).toLowerCase();
+    }
+
+    // the form of the key whose frequency is counted by the policy, the same for all the keys this cache treats as equal
+    String sketchKey(String key) {
+        return rta ? normalize(key) : key;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        return key instanceof String && keySet().stream().anyMatch(k -> equals(k, (String) key));
+        String actual = key instanceof String ? super.keySet().stream().filter(k -> equals(k, (String) key)).findFirst().orElse(null) : null;
+        boolean tor = actual != null && !expire(actual);
+        if (Metrics.isEnabled() && getType() != null)
+            Metrics.getInstance().cacheLookup(type, tor);
+        return tor;
+    }
+
+    @Override
+    public T put(String key, T value) {
+        T tor = super.put(key, value);
+        if (tor == null) reportSize();
+        if (policy != null) policy.onWrite(key, value);
+        return tor;
+    }
+
+    @Override
+    public T remove(Object key) {
+        T tor = super.remove(key);
+        if (tor != null) afterRemove((String) key, tor);
+        return tor;
+    }
+
+    // evicts the entry stored under the given key if it has expired, so every lookup agrees on whether it is present
+    private boolean expire(String actual) {
+        if (policy == null || !policy.isExpired(actual)) return false;
+        evict(actual, CachePolicy.RemovalCause.EXPIRED);
+        return true;
+    }
+
+    // the bookkeeping of every removal of an entry other than an eviction
+    private void afterRemove(String key, T value) {
+        if (policy != null) policy.onRemove(key);
+        removed(key, value);
+        reportSize();
+    }
+
+    // the methods below are implemented using put and remove, as the ones of HashMap bypass them
+
+    @Override
+    public void putAll(Map<? extends String, ? extends T> m) {
+        for (Map.Entry<? extends String, ? extends T> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public T putIfAbsent(String key, T value) {
+        T tor = super.get(key);
+        if (tor == null) put(key, value);
+        return tor;
+    }
+
+    @Override
+    public T computeIfAbsent(String key, Function<? super String, ? extends T> mappingFunction) {
+        T tor = super.get(key);
+        if (tor != null) return tor;
+        tor = mappingFunction.apply(key);
+        if (tor != null) put(key, tor);
+        return tor;
+    }
+
+    @Override
+    public T computeIfPresent(String key, BiFunction<? super String, ? super T, ? extends T> remappingFunction) {
+        T old = super.get(key);
+        if (old == null) return null;
+        return store(key, remappingFunction.apply(key, old));
+    }
+
+    @Override
+    public T compute(String key, BiFunction<? super String, ? super T, ? extends T> remappingFunction) {
+        return store(key, remappingFunction.apply(key, super.get(key)));
+    }
+
+    @Override
+    public T merge(String key, T value, BiFunction<? super T, ? super T, ? extends T> remappingFunction) {
+        T old = super.get(key);
+        return store(key, old == null ? value : remappingFunction.apply(old, value));
+    }
+
+    // puts the value, or removes the entry if the value is null, like the compute methods of Map
+    private T store(String key, T value) {
+        if (value == null) remove(key);
+        else put(key, value);
+        return value;
+    }
+
+    @Override
+    public T replace(String key, T value) {
+        return super.containsKey(key) ? put(key, value) : null;
+    }
+
+    @Override
+    public boolean replace(String key, T oldValue, T newValue) {
+        if (!super.containsKey(key) || !Objects.equals(super.get(key), oldValue)) return false;
+        put(key, newValue);
+        return true;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super T, ? extends T> function) {
+        for (String key : new ArrayList<>(super.keySet()))
+            put(key, function.apply(key, super.get(key)));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!super.containsKey(key) || !Objects.equals(super.get(key), value)) return false;
+        remove(key);
+        return true;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Removing<>(Map.Entry::getKey);
+            }
+
+            @Override
+            public int size() {
+                return Cache.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return Cache.super.containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!Cache.super.containsKey(o)) return false;
+                Cache.this.remove(o);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                Cache.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Removing<>(Map.Entry::getValue);
+            }
+
+            @Override
+            public int size() {
+                return Cache.this.size();
+            }
+
+            @Override
+            public void clear() {
+                Cache.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, T>> entrySet() {
+        return new AbstractSet<Map.Entry<String, T>>() {
+            @Override
+            public Iterator<Map.Entry<String, T>> iterator() {
+                return new Removing<>(e -> e);
+            }
+
+            @Override
+            public int size() {
+                return Cache.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return Cache.super.entrySet().contains(o);
+            }
+
+            @Override
+            public void clear() {
+                Cache.this.clear();
+            }
+        };
+    }
+
+    // an iterator over the entries of the views of this cache, whose removals do the bookkeeping of remove(Object)
+    private class Removing<E> implements Iterator<E> {
+        private final Iterator<Map.Entry<String, T>> entries = Cache.super.entrySet().iterator();
+        private final Function<Map.Entry<String, T>, E> view;
+        private Map.Entry<String, T> last;
+
+        Removing(Function<Map.Entry<String, T>, E> view) {
+            this.view = view;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return view.apply(last = entries.next());
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            String key = last.getKey();
+            T value = last.getValue();
+            entries.remove();
+            last = null;
+            afterRemove(key, value);
+        }
+    }
+
+    // called after an entry is removed from this cache in any way other than clear(), for the indexes of subclasses
+    void removed(String key, T value) {}
+
+    // clears the IDs assigned by this cache, called by PokemasDBCache.clearCaches() after all the caches are cleared
+    void clearIds() {}
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (policy != null) policy.clear();
+        reportSize();
+    }
+
+    /**
+     * Sets the policy bounding the size of this cache and expiring its entries,
+     * which is applied to the entries already present too. Every way of modifying this cache goes through the policy,
+     * including the methods of {@link Map} like {@link #merge merge} and the removals through {@link #keySet()},
+     * {@link #values()} and {@link #entrySet()}.
+     *
+     * @param policy the policy, {@code null} to keep the entries forever, which is the default
+     * @see CachePolicy
+     */
+    public void setPolicy(CachePolicy<T> policy) {
+        if (policy == null) {
+            this.policy = null;
+            return;
+        }
+        this.policy = new PolicyState<>(this, policy);
+        for (Map.Entry<String, T> e : new ArrayList<>(super.entrySet()))
+            this.policy.onWrite(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Returns the policy of this cache.
+     *
+     * @return the policy of this cache, {@code null} if its entries are kept forever
+     */
+    public CachePolicy<T> getPolicy() {
+        return policy == null ? null : policy.policy;
+    }
+
+    /**
+     * Removes all the expired entries of this cache, which are otherwise removed only when looked up
+     * or while putting new entries.
+     */
+    public void cleanUp() {
+        if (policy != null) policy.cleanUp();
+    }
+
+    // removes an entry chosen by the policy and notifies its listener
+    void evict(String key, CachePolicy.RemovalCause cause) {
+        if (!super.containsKey(key)) return;
+        T value = super.remove(key);
+        PolicyState<T> state = policy;
+        state.onRemove(key);
+        removed(key, value);
+        reportSize();
+        state.policy.listener.onEviction(key, value, cause);
+    }
+
+    /**
+     * Returns the {@link Type} of this cache.
+     *
+     * @return the {@link Type} of this cache, {@code null} if this cache is not one of the Singleton Caches.
+     */
+    public Type getType() {
+        if (type == null) {
+            for (Type t : Type.values()) {
+                if (t.getCache() == this) {
+                    type = t;
+                    break;
+                }
+            }
+        }
+        return type;
+    }
+
+    private void reportSize() {
+        if (Metrics.isEnabled() && getType() != null)
+            Metrics.getInstance().cacheResized(type, size());
     }
 
     /**
@@ -58,6 +476,41 @@ public class Cache<T> extends HashMap<String, T> {
         return a == null ? b == null : b != null && rta ? Util.reduceToAlphanumeric(a).equalsIgnoreCase(Util.reduceToAlphanumeric(b)) : a.equals(b);
     }
 
+    /**
+     * The result of looking up many keys in a {@link Cache} using {@link #getAll(Collection)}.
+     * <br>All of this class's variables are {@code public final} i.e. available without the use of getters
+     * but not assignable.
+     *
+     * @param <T> the type of the values of the Cache
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Lookup<T> {
+        /** The values found, by the keys which were looked up, in the order of the keys. */
+        public final Map<String, T> found;
+        /** The keys which were not found, in the order they were given. */
+        public final List<String> missing;
+
+        Lookup(Map<String, T> found, List<String> missing) {
+            this.found = Collections.unmodifiableMap(found);
+            this.missing = Collections.unmodifiableList(missing);
+        }
+
+        /**
+         * Returns true if all the keys were found.
+         *
+         * @return true if all the keys were found, false otherwise
+         */
+        public boolean isComplete() {
+            return missing.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Lookup{found=" + found.keySet() + ", missing=" + missing + "}";
+        }
+    }
+
     /**
      * Represents a type of Cache.
      */
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A policy which bounds the size of a {@link Cache} and expires its entries, set using {@link Cache#setPolicy(CachePolicy)}.
+ * <br>A Cache without a policy keeps its entries forever, which is the default.
+ * When the Cache exceeds its maximum size (or weight) the entries are evicted using the chosen {@link Eviction} algorithm,
+ * and entries older than the expiry durations are removed when they are looked up or when {@link Cache#cleanUp()} is called.
+ * For example, bounding the ad-hoc objects cached in the {@link PokemasDBCache}:-
+ * <pre><code>
+ *     PokemasDBCache.getInstance().setPolicy(new CachePolicy&lt;&gt;()
+ *         .maximumSize(10_000)
+ *         .expireAfterAccess(Duration.ofHours(1))
+ *         .listener((key, value, cause) -&gt; System.out.println("Evicted " + key + " " + cause)));
+ * </code></pre>
+ * The policy applies to the {@code get}, {@code put}, {@code remove} and {@code clear} methods of the Cache.
+ * Bounding the Caches of the entities is not recommended, as the entities expect to find their nodes in them.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @param <V> the type of the values of the Cache
+ */
+public class CachePolicy<V> {
+    long maximum = Long.MAX_VALUE;
+    ToLongFunction<? super V> weigher = v -> 1;
+    long expireAfterWrite = Long.MAX_VALUE;
+    long expireAfterAccess = Long.MAX_VALUE;
+    Eviction eviction = Eviction.TINY_LFU;
+    EvictionListener<? super V> listener = (key, value, cause) -> {};
+    LongSupplier ticker = System::nanoTime;
+
+    /**
+     * Limits the amount of entries of the Cache.
+     *
+     * @param maximumSize the maximum amount of entries
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> maximumSize(long maximumSize) {
+        return maximumWeight(maximumSize, v -> 1);
+    }
+
+    /**
+     * Limits the total weight of the entries of the Cache.
+     *
+     * @param maximumWeight the maximum total weight
+     * @param weigher       gives the weight of each value, which must not be negative
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> maximumWeight(long maximumWeight, ToLongFunction<? super V> weigher) {
+        if (maximumWeight < 0) throw new IllegalArgumentException("The maximum cannot be negative!");
+        this.maximum = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        return this;
+    }
+
+    /**
+     * Expires the entries after the given duration since they were put in the Cache.
+     *
+     * @param duration the duration after which the entries expire
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> expireAfterWrite(Duration duration) {
+        this.expireAfterWrite = duration.toNanos();
+        return this;
+    }
+
+    /**
+     * Expires the entries after the given duration since they were last put in or got from the Cache.
+     *
+     * @param duration the duration after which the entries expire
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> expireAfterAccess(Duration duration) {
+        this.expireAfterAccess = duration.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the algorithm choosing the entries to be evicted, {@link Eviction#TINY_LFU} by default.
+     *
+     * @param eviction the algorithm choosing the entries to be evicted
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> eviction(Eviction eviction) {
+        this.eviction = Objects.requireNonNull(eviction);
+        return this;
+    }
+
+    /**
+     * Sets the listener called whenever an entry is evicted or expires.
+     *
+     * @param listener the listener
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> listener(EvictionListener<? super V> listener) {
+        this.listener = Objects.requireNonNull(listener);
+        return this;
+    }
+
+    /**
+     * Sets the source of the time, in nanoseconds, used for the expiry. {@link System#nanoTime()} by default.
+     *
+     * @param ticker the source of the time
+     * @return this instance, useful for chaining.
+     */
+    public CachePolicy<V> ticker(LongSupplier ticker) {
+        this.ticker = Objects.requireNonNull(ticker);
+        return this;
+    }
+
+    /**
+     * An algorithm choosing the entries to be evicted.
+     */
+    public enum Eviction {
+        /** Evicts the least recently used entry. */
+        LRU,
+        /**
+         * Window TinyLFU: new entries are kept in a small LRU window, and when they leave it they are only admitted
+         * into the rest of the Cache if they have been used more often than the entry they would replace,
+         * as estimated by a compact frequency sketch. This keeps the hot entries when many entries are used only once.
+         */
+        TINY_LFU
+    }
+
+    /**
+     * The reason an entry was removed by the policy.
+     */
+    public enum RemovalCause {
+        /** The Cache exceeded its maximum size or weight. */
+        SIZE,
+        /** The entry expired. */
+        EXPIRED
+    }
+
+    /**
+     * A listener called whenever an entry is removed by the policy.
+     *
+     * @param <V> the type of the values of the Cache
+     */
+    @FunctionalInterface
+    public interface EvictionListener<V> {
+        /**
+         * Called after the entry has been removed.
+         *
+         * @param key   the key of the entry
+         * @param value the value of the entry
+         * @param cause the reason the entry was removed
+         */
+        void onEviction(String key, V value, RemovalCause cause);
+    }
+}
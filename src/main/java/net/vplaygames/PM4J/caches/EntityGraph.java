@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * A graph of the relations between the Trainers, Pokemon, Moves, Passive Skills and Theme Skills in the Caches,
+ * over their IDs.
+ * <br>The relations are gathered once, when the graph is built, from {@link Trainer#pokemonData},
+ * {@link MoveDataCache.Node#users}, {@link SkillDataCache.Node#inbuilt}, {@link SkillDataCache.Node#inGrid},
+ * {@link ThemeSkillDataCache.Node#pokemon} and {@link Pokemon#otherForms}, and each relation is stored in
+ * compressed sparse row form: the neighbours of {@code id} are {@code targets[offsets[id]]} until
+ * {@code targets[offsets[id + 1]]}, sorted and without duplicates. Each relation is stored in both directions,
+ * so multi-hop queries only read these arrays. For example:-
+ * <pre><code>
+ *     EntityGraph graph = EntityGraph.build();
+ *     // the Pokemon sharing at least 2 moves with a Pokemon
+ *     int[] similar = graph.sharing(pokemon.id, EntityGraph.Relation.POKEMON_MOVE, 2);
+ *     // the Trainers whose Sync Pairs have a Passive Skill
+ *     int[] trainers = graph.traverse(passive.id, EntityGraph.Relation.PASSIVE_POKEMON, EntityGraph.Relation.POKEMON_TRAINER);
+ * </code></pre>
+ * The IDs are resolved using the {@code byId} methods of the Caches, like {@link Kind#resolve(int)}.
+ * The graph is a snapshot of the Caches, and should be built again after the data is reloaded.
+ * It is immutable, so it can be used by many threads, but it should not be built while the Caches are being modified.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class EntityGraph {
+    private final int[] counts = new int[Kind.values().length];
+    private final int[][] offsets = new int[Relation.values().length][];
+    private final int[][] targets = new int[Relation.values().length][];
+
+    private EntityGraph() {}
+
+    /**
+     * Builds the graph of the entities currently in the Caches.
+     * <br>The Pokemon of the Trainers which were parsed lazily are parsed, so they are part of the graph.
+     *
+     * @return the graph built
+     * @throws IllegalStateException if the Caches were modified by another thread while the graph was being built
+     */
+    public static EntityGraph build() {
+        EntityGraph tor = new EntityGraph();
+        Edges trainers = new Edges(), moves = new Edges(), passives = new Edges(), grid = new Edges(), themes = new Edges(), forms = new Edges();
+        Map<String, List<Pokemon>> byName = new HashMap<>();
+        // gathered first, as iterating a lazily parsed Trainer parses its Pokemon, putting them in the Caches
+        for (Trainer t : TrainerDataCache.getInstance().values())
+            for (Pokemon p : t.pokemonData)
+                trainers.add(t.id, p.id);
+        for (MoveDataCache.Node node : MoveDataCache.getInstance().values())
+            node.users.ids().forEach(p -> moves.add(node.move.id, p));
+        for (SkillDataCache.Node node : SkillDataCache.getInstance().values()) {
+            node.inbuilt.ids().forEach(p -> passives.add(node.skill.id, p));
+            node.inGrid.ids().forEach(p -> grid.add(node.skill.id, p));
+        }
+        for (ThemeSkillDataCache.Node node : ThemeSkillDataCache.getInstance().values())
+            node.pokemon.ids().forEach(p -> themes.add(node.skill.id, p));
+        List<Pokemon> all = new ArrayList<>(PokemonDataCache.getInstance().getAllPokemon());
+        for (Pokemon p : all)
+            byName.computeIfAbsent(p.name.toLowerCase(), k -> new ArrayList<>()).add(p);
+        for (Pokemon p : all) {
+            for (String form : p.otherForms) {
+                Pokemon other = otherForm(p, byName.get(form.toLowerCase()));
+                if (other != null && other.id != p.id) {
+                    forms.add(p.id, other.id);
+                    forms.add(other.id, p.id);
+                }
+            }
+        }
+        // taken after all the edges are gathered, so every ID gathered is less than them
+        for (Kind kind : Kind.values())
+            tor.counts[kind.ordinal()] = kind.count.getAsInt();
+        tor.store(Relation.TRAINER_POKEMON, trainers);
+        tor.store(Relation.MOVE_POKEMON, moves);
+        tor.store(Relation.PASSIVE_POKEMON, passives);
+        tor.store(Relation.GRID_PASSIVE_POKEMON, grid);
+        tor.store(Relation.THEME_SKILL_POKEMON, themes);
+        tor.store(Relation.POKEMON_OTHER_FORM, forms);
+        return tor;
+    }
+
+    // the other form with the given name, preferring the one of the same Trainer
+    private static Pokemon otherForm(Pokemon p, List<Pokemon> named) {
+        if (named == null) return null;
+        for (Pokemon other : named)
+            if (other.trainer.equals(p.trainer)) return other;
+        return named.get(0);
+    }
+
+    // stores the relation and its inverse, transposing it
+    private void store(Relation relation, Edges edges) {
+        int from = counts[relation.from.ordinal()], to = counts[relation.to.ordinal()];
+        compress(relation, from, to, edges.sources, edges.targets, edges.size);
+        if (relation.inverse() != relation)
+            compress(relation.inverse(), to, from, edges.targets, edges.sources, edges.size);
+    }
+
+    private void compress(Relation relation, int nodes, int targetNodes, int[] sources, int[] dests, int size) {
+        int[] offset = new int[nodes + 1];
+        for (int i = 0; i < size; i++) {
+            check(relation.from, sources[i], nodes);
+            check(relation.to, dests[i], targetNodes);
+            offset[sources[i] + 1]++;
+        }
+        for (int i = 0; i < nodes; i++)
+            offset[i + 1] += offset[i];
+        int[] target = new int[offset[nodes]];
+        int[] next = Arrays.copyOf(offset, nodes);
+        for (int i = 0; i < size; i++)
+            target[next[sources[i]]++] = dests[i];
+        // sorts each row and removes the duplicates, compacting the rows
+        int write = 0;
+        for (int i = 0; i < nodes; i++) {
+            int start = offset[i], end = offset[i + 1];
+            Arrays.sort(target, start, end);
+            offset[i] = write;
+            for (int j = start; j < end; j++)
+                if (j == start || target[j] != target[j - 1]) target[write++] = target[j];
+        }
+        offset[nodes] = write;
+        offsets[relation.ordinal()] = offset;
+        targets[relation.ordinal()] = write == target.length ? target : Arrays.copyOf(target, write);
+    }
+
+    private static void check(Kind kind, int id, int count) {
+        if (id < 0 || id >= count)
+            throw new IllegalStateException("The " + kind + " ID " + id + " is not less than " + count + ", the Caches were modified while the graph was being built!");
+    }
+
+    /**
+     * Returns the amount of IDs of the given kind in this graph, all the IDs being less than it.
+     *
+     * @param kind the kind of entity
+     * @return the amount of IDs of the given kind
+     */
+    public int count(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the amount of neighbours of an entity.
+     *
+     * @param id       the ID of the entity
+     * @param relation the relation to follow
+     * @return the amount of neighbours, 0 if the ID is not in this graph
+     */
+    public int degree(int id, Relation relation) {
+        int[] offset = offsets[relation.ordinal()];
+        return id < 0 || id >= offset.length - 1 ? 0 : offset[id + 1] - offset[id];
+    }
+
+    /**
+     * Returns the neighbours of an entity.
+     *
+     * @param id       the ID of the entity
+     * @param relation the relation to follow
+     * @return the IDs of the neighbours, sorted, empty if the ID is not in this graph
+     */
+    public int[] neighbours(int id, Relation relation) {
+        int[] offset = offsets[relation.ordinal()];
+        if (id < 0 || id >= offset.length - 1) return new int[0];
+        return Arrays.copyOfRange(targets[relation.ordinal()], offset[id], offset[id + 1]);
+    }
+
+    /**
+     * Performs the given action for each neighbour of an entity, in ascending order, without copying them.
+     *
+     * @param id       the ID of the entity
+     * @param relation the relation to follow
+     * @param action   the action to be performed on the ID of each neighbour
+     */
+    public void forEachNeighbour(int id, Relation relation, IntConsumer action) {
+        int[] offset = offsets[relation.ordinal()], target = targets[relation.ordinal()];
+        if (id < 0 || id >= offset.length - 1) return;
+        for (int i = offset[id]; i < offset[id + 1]; i++)
+            action.accept(target[i]);
+    }
+
+    /**
+     * Returns the entities reached from an entity by following the given relations one after the other.
+     *
+     * @param id   the ID of the entity to start from
+     * @param path the relations to follow, each starting from the kind of entity the previous one ends at
+     * @return the IDs of the entities reached by the last relation, sorted
+     * @throws IllegalArgumentException if a relation does not start from the kind of entity the previous one ends at
+     */
+    public int[] traverse(int id, Relation... path) {
+        int[] frontier = {id};
+        for (int step = 0; step < path.length; step++) {
+            Relation relation = path[step];
+            if (step > 0 && path[step - 1].to != relation.from)
+                throw new IllegalArgumentException(relation + " does not start from " + path[step - 1].to);
+            int[] offset = offsets[relation.ordinal()], target = targets[relation.ordinal()];
+            boolean[] reached = new boolean[count(relation.to)];
+            int size = 0;
+            for (int node : frontier) {
+                if (node < 0 || node >= offset.length - 1) continue;
+                for (int i = offset[node]; i < offset[node + 1]; i++) {
+                    if (!reached[target[i]]) {
+                        reached[target[i]] = true;
+                        size++;
+                    }
+                }
+            }
+            frontier = new int[size];
+            for (int i = 0, j = 0; j < size; i++)
+                if (reached[i]) frontier[j++] = i;
+        }
+        return frontier;
+    }
+
+    /**
+     * Returns the entities sharing at least the given amount of neighbours with an entity,
+     * like the Pokemon sharing at least 2 Moves with a Pokemon.
+     *
+     * @param id        the ID of the entity
+     * @param relation  the relation whose neighbours are to be shared
+     * @param minShared the minimum amount of neighbours to be shared
+     * @return the IDs of the entities, not including the given one, sorted by the amount of neighbours shared
+     * in descending order, and then by ID
+     */
+    public int[] sharing(int id, Relation relation, int minShared) {
+        int[] shared = sharedCounts(id, relation);
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < shared.length; i++)
+            if (i != id && shared[i] >= Math.max(minShared, 1)) found.add(i);
+        found.sort((a, b) -> shared[a] != shared[b] ? Integer.compare(shared[b], shared[a]) : Integer.compare(a, b));
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns, for every entity of the same kind as the given one, the amount of neighbours it shares with it.
+     *
+     * @param id       the ID of the entity
+     * @param relation the relation whose neighbours are to be shared
+     * @return the amount of neighbours shared, by ID
+     */
+    public int[] sharedCounts(int id, Relation relation) {
+        Relation inverse = relation.inverse();
+        int[] offset = offsets[inverse.ordinal()], target = targets[inverse.ordinal()];
+        int[] tor = new int[count(relation.from)];
+        forEachNeighbour(id, relation, n -> {
+            for (int i = offset[n]; i < offset[n + 1]; i++)
+                tor[target[i]]++;
+        });
+        return tor;
+    }
+
+    /**
+     * The kinds of entities in an {@link EntityGraph}.
+     */
+    public enum Kind {
+        /** Refers to {@link Trainer}, with IDs from {@link TrainerDataCache} */
+        TRAINER(() -> TrainerDataCache.getInstance().idCount(), id -> TrainerDataCache.getInstance().byId(id)),
+        /** Refers to {@link Pokemon}, with IDs from {@link PokemonDataCache} */
+        POKEMON(() -> PokemonDataCache.getInstance().idCount(), id -> PokemonDataCache.getInstance().byId(id)),
+        /** Refers to {@link net.vplaygames.PM4J.entities.Move Move}, with IDs from {@link MoveDataCache} */
+        MOVE(() -> MoveDataCache.getInstance().idCount(), id -> MoveDataCache.getInstance().byId(id)),
+        /** Refers to {@link net.vplaygames.PM4J.entities.Passive Passive}, with IDs from {@link SkillDataCache} */
+        PASSIVE(() -> SkillDataCache.getInstance().idCount(), id -> SkillDataCache.getInstance().byId(id)),
+        /** Refers to {@link net.vplaygames.PM4J.entities.ThemeSkill ThemeSkill}, with IDs from {@link ThemeSkillDataCache} */
+        THEME_SKILL(() -> ThemeSkillDataCache.getInstance().idCount(), id -> ThemeSkillDataCache.getInstance().byId(id));
+
+        private final IntSupplier count;
+        private final IntFunction<Object> byId;
+
+        Kind(IntSupplier count, IntFunction<Object> byId) {
+            this.count = count;
+            this.byId = byId;
+        }
+
+        /**
+         * Returns the entity of this kind with the given ID, from its Cache.
+         *
+         * @param id the ID of the entity
+         * @return the entity with the given ID, {@code null} if there is none
+         */
+        public Object resolve(int id) {
+            return byId.apply(id);
+        }
+    }
+
+    /**
+     * The relations in an {@link EntityGraph}, each of which is stored in both directions.
+     */
+    public enum Relation {
+        /** From a Trainer to its Pokemon. */
+        TRAINER_POKEMON(Kind.TRAINER, Kind.POKEMON),
+        /** From a Pokemon to its Trainer. */
+        POKEMON_TRAINER(Kind.POKEMON, Kind.TRAINER),
+        /** From a Move to the Pokemon which can use it. */
+        MOVE_POKEMON(Kind.MOVE, Kind.POKEMON),
+        /** From a Pokemon to its Moves. */
+        POKEMON_MOVE(Kind.POKEMON, Kind.MOVE),
+        /** From an inbuilt Passive Skill to the Pokemon having it. */
+        PASSIVE_POKEMON(Kind.PASSIVE, Kind.POKEMON),
+        /** From a Pokemon to its inbuilt Passive Skills. */
+        POKEMON_PASSIVE(Kind.POKEMON, Kind.PASSIVE),
+        /** From a Passive Skill to the Pokemon having it in their Sync Grid. */
+        GRID_PASSIVE_POKEMON(Kind.PASSIVE, Kind.POKEMON),
+        /** From a Pokemon to the Passive Skills in its Sync Grid. */
+        POKEMON_GRID_PASSIVE(Kind.POKEMON, Kind.PASSIVE),
+        /** From a Theme Skill to the Pokemon having it. */
+        THEME_SKILL_POKEMON(Kind.THEME_SKILL, Kind.POKEMON),
+        /** From a Pokemon to its Theme Skills. */
+        POKEMON_THEME_SKILL(Kind.POKEMON, Kind.THEME_SKILL),
+        /** Between the other forms of a Pokemon, in both directions. */
+        POKEMON_OTHER_FORM(Kind.POKEMON, Kind.POKEMON);
+
+        /** The kind of entity this relation starts from. */
+        public final Kind from;
+        /** The kind of entity this relation ends at. */
+        public final Kind to;
+
+        Relation(Kind from, Kind to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the relation in the other direction.
+         *
+         * @return the relation in the other direction, this relation itself for {@link #POKEMON_OTHER_FORM}
+         */
+        public Relation inverse() {
+            if (this == POKEMON_OTHER_FORM) return this;
+            return values()[ordinal() ^ 1];
+        }
+    }
+
+    // a growing list of edges
+    private static class Edges {
+        int[] sources = new int[16];
+        int[] targets = new int[16];
+        int size;
+
+        void add(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size++] = target;
+        }
+    }
+}
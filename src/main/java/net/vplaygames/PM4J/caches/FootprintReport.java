@@ -0,0 +1,437 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import net.vplaygames.PM4J.entities.LazyPokemonList;
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.StatRange;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An estimate of the heap retained by the Caches, per {@link Cache.Type} and per class of the objects retained.
+ * <br>The sizes are estimated from the fields of each class, assuming a 64-bit JVM with compressed references
+ * (12 byte object headers, 4 byte references, 8 byte alignment) and compact strings,
+ * so no instrumentation is required. The size of an object is derived from the types of the instance fields of its
+ * class, found using reflection, so it follows changes to the entities. Strings, arrays, lists, maps and bitmaps
+ * are included; the sizes of the arrays and entries inside the JDK's maps are those of their OpenJDK layout.
+ * <br>The Pokemon of a {@link LazyPokemonList lazily parsed} Trainer are not parsed by computing a report:
+ * the ones already parsed are counted as Pokemon, and the text of the others is counted as Strings.
+ * An object reachable from many Caches is only counted once, under the first Cache reaching it, and the Caches
+ * are walked in the order {@code MOVE, SKILL, THEME, POKEMON, TRAINER, UNKNOWN}, so the Moves used by the Pokemon
+ * are counted under {@code MOVE} when they are the ones held by the {@link MoveDataCache}, and under {@code POKEMON} otherwise.
+ * <br>Pokemon and Trainers which have been replaced by a reloaded Pokemon or Trainer with the same key,
+ * but are still retained, are counted as {@link #getStale(Class) stale}, which helps to catch leaks caused by reloading.
+ * Computing a report walks all the objects once, so it is cheap enough to be done periodically.
+ * For example:-
+ * <pre><code>
+ *     FootprintReport report = FootprintReport.compute();
+ *     System.out.println(report.getTotalBytes() + " bytes, " + report.getStale(Pokemon.class) + " stale Pokemon");
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class FootprintReport {
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new ConcurrentHashMap<>();
+    private static final Cache.Type[] ORDER = {Cache.Type.MOVE, Cache.Type.SKILL, Cache.Type.THEME, Cache.Type.POKEMON, Cache.Type.TRAINER, Cache.Type.UNKNOWN};
+    private final Map<Cache.Type, Usage> byCache = new EnumMap<>(Cache.Type.class);
+    private final Map<Class<?>, Usage> byClass = new LinkedHashMap<>();
+    private final Map<Class<?>, Long> stale = new LinkedHashMap<>();
+    private final Map<Object, Boolean> seen = new IdentityHashMap<>();
+    private Usage current;
+    private long total;
+
+    private FootprintReport() {}
+
+    /**
+     * Computes a new report of the current state of the Caches.
+     *
+     * @return a new report
+     */
+    public static FootprintReport compute() {
+        FootprintReport tor = new FootprintReport();
+        for (Cache.Type type : ORDER) {
+            tor.current = new Usage();
+            tor.byCache.put(type, tor.current);
+            tor.cache(type.getCache());
+        }
+        tor.seen.clear();
+        return tor;
+    }
+
+    /**
+     * Returns the estimated amount of bytes retained by all the Caches.
+     *
+     * @return the estimated amount of bytes retained by all the Caches
+     */
+    public long getTotalBytes() {
+        return total;
+    }
+
+    /**
+     * Returns the usage of each Cache.
+     *
+     * @return the usage of each Cache
+     */
+    public Map<Cache.Type, Usage> getByCache() {
+        return Collections.unmodifiableMap(byCache);
+    }
+
+    /**
+     * Returns the usage of each class of objects retained by the Caches.
+     *
+     * @return the usage of each class, in the order they were first found
+     */
+    public Map<Class<?>, Usage> getByClass() {
+        return Collections.unmodifiableMap(byClass);
+    }
+
+    /**
+     * Returns the amount of retained objects of the given class which have been replaced by a reloaded one.
+     *
+     * @param clazz either {@link Pokemon} or {@link Trainer}
+     * @return the amount of stale objects of the given class
+     */
+    public long getStale(Class<?> clazz) {
+        return stale.getOrDefault(clazz, 0L);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tor = new StringBuilder("FootprintReport{total=").append(total).append(", byCache={");
+        byCache.forEach((type, usage) -> tor.append(type.name()).append('=').append(usage).append(", "));
+        tor.setLength(tor.length() - 2);
+        tor.append("}, byClass={");
+        byClass.forEach((clazz, usage) -> tor.append(name(clazz)).append('=').append(usage).append(", "));
+        if (!byClass.isEmpty()) tor.setLength(tor.length() - 2);
+        tor.append("}, stale={");
+        stale.forEach((clazz, count) -> tor.append(name(clazz)).append('=').append(count).append(", "));
+        if (!stale.isEmpty()) tor.setLength(tor.length() - 2);
+        return tor.append("}}").toString();
+    }
+
+    // the name of the class without its package, keeping the name of the enclosing class
+    private static String name(Class<?> clazz) {
+        return clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1);
+    }
+
+    private static long align(long bytes) {
+        return bytes + 7 & ~7;
+    }
+
+    // the size of an instance of the given class, from the types of its instance fields
+    static long shallowSize(Class<?> clazz) {
+        return SHALLOW_SIZES.computeIfAbsent(clazz, c -> {
+            long tor = 12;
+            for (Class<?> k = c; k != null; k = k.getSuperclass())
+                for (Field f : k.getDeclaredFields())
+                    if (!Modifier.isStatic(f.getModifiers()))
+                        tor += fieldSize(f.getType());
+            return align(tor);
+        });
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return 4;
+    }
+
+    // records an object, sized from its class, returns false if it has already been counted
+    private boolean add(Object o) {
+        return o != null && add(o, o.getClass(), shallowSize(o.getClass()));
+    }
+
+    // records an object of the given size, returns false if it has already been counted
+    private boolean add(Object o, Class<?> clazz, long bytes) {
+        if (o == null || seen.put(o, Boolean.TRUE) != null) return false;
+        bytes = align(bytes);
+        current.add(bytes);
+        byClass.computeIfAbsent(clazz, c -> new Usage()).add(bytes);
+        total += bytes;
+        return true;
+    }
+
+    private void cache(Cache<?> cache) {
+        add(cache);
+        hashTable(cache.size());
+        for (Map.Entry<String, ?> e : cache.entrySet()) {
+            string(e.getKey());
+            object(e.getValue());
+        }
+        if (cache instanceof PokemonDataCache) {
+            PokemonDataCache pdc = (PokemonDataCache) cache;
+            registry(pdc.idCount(), 24);
+            registry(pdc.tileIdCount(), 24);
+        } else if (cache instanceof TrainerDataCache) {
+            registry(((TrainerDataCache) cache).idCount(), 16);
+        } else if (cache instanceof MoveDataCache) {
+            registry(((MoveDataCache) cache).idCount(), 16);
+        } else if (cache instanceof SkillDataCache) {
+            registry(((SkillDataCache) cache).idCount(), 24);
+            for (SkillDataCache.Family f : ((SkillDataCache) cache).getFamilies()) {
+                add(f);
+                string(f.name);
+                seenless(TreeMap.class, align(48) + 40L * f.levels.size());
+                for (List<SkillDataCache.Node> nodes : f.levels.values())
+                    list(nodes);
+            }
+        } else if (cache instanceof ThemeSkillDataCache) {
+            registry(((ThemeSkillDataCache) cache).idCount(), 24);
+        }
+    }
+
+    // the size of a hash table with the given amount of entries, without the keys and the values
+    private void hashTable(int size) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < size) capacity <<= 1;
+        long bytes = align(16 + 4L * capacity) + 32L * size;
+        seenless(Map.Entry.class, bytes);
+    }
+
+    // the size of an IdRegistry, estimating its keys from the average key length
+    private void registry(int size, int averageKeyLength) {
+        long bytes = align(16 + 4L * Math.max(16, size)) + (32 + 16 + align(24) + align(16 + averageKeyLength)) * (long) size;
+        seenless(IdRegistry.class, bytes);
+    }
+
+    // records bytes which do not belong to a single object
+    private void seenless(Class<?> clazz, long bytes) {
+        current.bytes += bytes;
+        byClass.computeIfAbsent(clazz, c -> new Usage()).bytes += bytes;
+        total += bytes;
+    }
+
+    private void object(Object o) {
+        if (o == null) return;
+        if (o instanceof Trainer) trainer((Trainer) o);
+        else if (o instanceof Pokemon) pokemon((Pokemon) o);
+        else if (o instanceof String) string((String) o);
+        else if (o instanceof Collection) list((Collection<?>) o);
+        else if (o instanceof MoveDataCache.Node) {
+            MoveDataCache.Node node = (MoveDataCache.Node) o;
+            if (add(node)) {
+                move(node.move);
+                pokemonSet(node.users);
+            }
+        } else if (o instanceof SkillDataCache.Node) {
+            SkillDataCache.Node node = (SkillDataCache.Node) o;
+            if (add(node)) {
+                passive(node.skill);
+                pokemonSet(node.inbuilt);
+                pokemonSet(node.inGrid);
+            }
+        } else if (o instanceof ThemeSkillDataCache.Node) {
+            ThemeSkillDataCache.Node node = (ThemeSkillDataCache.Node) o;
+            if (add(node)) {
+                themeSkill(node.skill);
+                pokemonSet(node.pokemon);
+            }
+        } else add(o);
+    }
+
+    private void trainer(Trainer t) {
+        if (!add(t)) return;
+        if (t.id != -1 && TrainerDataCache.getInstance().byId(t.id) != t)
+            stale.merge(Trainer.class, 1L, Long::sum);
+        string(t.name);
+        string(t.img);
+        string(t.data);
+        strings(t.pokemon);
+        if (t.pokemonData instanceof LazyPokemonList) lazyList((LazyPokemonList) t.pokemonData);
+        else list(t.pokemonData);
+    }
+
+    // the Pokemon of a lazily parsed Trainer, without parsing the ones which are not parsed yet
+    private void lazyList(LazyPokemonList list) {
+        if (!add(list)) return;
+        // the array of the unparsed entries and the one of the parsed entries
+        seenless(Object[].class, 2 * align(16 + 4L * list.size()));
+        list.forEachParsed(this::pokemon);
+        list.forEachUnparsed(o -> {
+            if (o instanceof String) string((String) o);
+        });
+    }
+
+    private void pokemon(Pokemon p) {
+        if (!add(p)) return;
+        if (p.id != -1 && PokemonDataCache.getInstance().byId(p.id) != p)
+            stale.merge(Pokemon.class, 1L, Long::sum);
+        string(p.name);
+        string(p.trainer);
+        string(p.syncPair);
+        strings(p.typing);
+        string(p.weakness);
+        string(p.role);
+        string(p.gender);
+        strings(p.otherForms);
+        statRange(p.stats);
+        syncMove(p.syncMove);
+        list(p.moves);
+        list(p.passives);
+        list(p.themeSkills);
+        list(p.grid);
+    }
+
+    private void list(Collection<?> list) {
+        if (!add(list)) return;
+        seenless(Object[].class, align(16 + 4L * list.size()));
+        for (Object o : list) {
+            if (o instanceof Move) move((Move) o);
+            else if (o instanceof Passive) passive((Passive) o);
+            else if (o instanceof ThemeSkill) themeSkill((ThemeSkill) o);
+            else if (o instanceof SyncTile) syncTile((SyncTile) o);
+            else object(o);
+        }
+    }
+
+    private void pokemonSet(PokemonSet set) {
+        if (add(set))
+            seenless(long[].class, align(16 + 8L * set.wordCount()));
+    }
+
+    private void move(Move m) {
+        if (!add(m)) return;
+        string(m.name);
+        string(m.type);
+        string(m.category);
+        string(m.target);
+        string(m.effect);
+    }
+
+    private void syncMove(SyncMove m) {
+        if (!add(m)) return;
+        string(m.name);
+        string(m.type);
+        string(m.category);
+        string(m.target);
+        string(m.description);
+    }
+
+    private void passive(Passive p) {
+        if (!add(p)) return;
+        string(p.name);
+        string(p.description);
+        string(p.family);
+    }
+
+    private void themeSkill(ThemeSkill t) {
+        if (!add(t)) return;
+        string(t.name);
+        string(t.tag);
+        string(t.category);
+        string(t.condition);
+        if (add(t.effects)) {
+            seenless(Object[].class, align(16 + 4L * t.effects.size()));
+            for (ThemeSkill.Effect e : t.effects) {
+                if (!add(e)) continue;
+                string(e.description);
+                add(e.values, int[].class, 16 + 4L * e.values.length);
+            }
+        }
+    }
+
+    private void syncTile(SyncTile t) {
+        if (!add(t)) return;
+        string(t.bonus);
+        string(t.title);
+        string(t.description);
+        string(t.gridPos);
+    }
+
+    private void statRange(StatRange s) {
+        if (!add(s)) return;
+        stats(s.base);
+        stats(s.max);
+    }
+
+    private void stats(Stats s) {
+        add(s);
+    }
+
+    private void strings(String[] array) {
+        if (!add(array, String[].class, 16 + 4L * array.length)) return;
+        for (String s : array)
+            string(s);
+    }
+
+    private void string(String s) {
+        if (s == null || seen.containsKey(s)) return;
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++)
+            latin1 = s.charAt(i) <= 0xFF;
+        add(s, String.class, align(24) + align(16 + (long) s.length() * (latin1 ? 1 : 2)));
+    }
+
+    /**
+     * The estimated amount of objects and bytes retained by a Cache or a class.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Usage {
+        private long count;
+        private long bytes;
+
+        void add(long bytes) {
+            count++;
+            this.bytes += bytes;
+        }
+
+        /**
+         * Returns the amount of objects.
+         *
+         * @return the amount of objects
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the estimated amount of bytes.
+         *
+         * @return the estimated amount of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return count + " objects/" + bytes + " bytes";
+        }
+    }
+}
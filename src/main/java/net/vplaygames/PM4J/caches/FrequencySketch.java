@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+/**
+ * A count-min sketch estimating how often each key has been used, with 4 saturating counters per key.
+ * <br>All the counters are halved after a number of increments proportional to the size of the sketch,
+ * so the estimates follow the recent usage instead of the usage since the beginning.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+class FrequencySketch {
+    private static final int[] SEEDS = {0x97CB3127, 0xB4F1A3C5, 0x7F4A7C15, 0x2545F491};
+    private static final int MAX_COUNT = 15;
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedSize) {
+        int length = Integer.highestOneBit(Math.max(16, expectedSize - 1) << 1) << 2;
+        table = new byte[length];
+        mask = length - 1;
+        sampleSize = 10 * Math.max(16, expectedSize);
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    void increment(String key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int i = index(hash, row);
+            if (table[i] < MAX_COUNT) {
+                table[i]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            for (int i = 0; i < table.length; i++)
+                table[i] >>= 1;
+            additions >>= 1;
+        }
+    }
+
+    int frequency(String key) {
+        int hash = key.hashCode(), tor = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++)
+            tor = Math.min(tor, table[index(hash, row)]);
+        return tor;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense integer IDs to entities, starting from 0, so they can be looked up by ID in constant time
+ * and referred to from arrays and bitsets without hashing their names.
+ * <br>Each entity is registered with a key which identifies it within a dataset, and an entity registered
+ * again with the same key, for example after reloading the data, keeps the same ID.
+ * All the methods of this class are thread-safe.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @param <E> the type of the entities
+ */
+public class IdRegistry<E> {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private Object[] entities = new Object[16];
+    private int size;
+
+    /**
+     * Registers the given entity, replacing the entity previously registered with the same key.
+     *
+     * @param key    the key identifying the entity
+     * @param entity the entity to be registered
+     * @return the ID of the entity
+     */
+    public synchronized int put(String key, E entity) {
+        int tor = idOf(key, true);
+        entities[tor] = entity;
+        return tor;
+    }
+
+    /**
+     * Registers the given entity, unless an entity has already been registered with the same key.
+     *
+     * @param key    the key identifying the entity
+     * @param entity the entity to be registered
+     * @return the ID of the entity registered with the given key
+     */
+    public synchronized int putIfAbsent(String key, E entity) {
+        int tor = idOf(key, true);
+        if (entities[tor] == null) entities[tor] = entity;
+        return tor;
+    }
+
+    private int idOf(String key, boolean create) {
+        Integer id = ids.get(key);
+        if (id != null || !create) return id == null ? -1 : id;
+        if (size == entities.length)
+            entities = Arrays.copyOf(entities, size * 2);
+        ids.put(key, size);
+        return size++;
+    }
+
+    /**
+     * Returns the ID of the entity registered with the given key.
+     *
+     * @param key the key identifying the entity
+     * @return the ID of the entity, -1 if no entity has been registered with the given key
+     */
+    public synchronized int idOf(String key) {
+        return idOf(key, false);
+    }
+
+    /**
+     * Returns the entity with the given ID.
+     *
+     * @param id the ID of the entity
+     * @return the entity with the given ID, {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized E byId(int id) {
+        return id < 0 || id >= size ? null : (E) entities[id];
+    }
+
+    /**
+     * Returns the amount of IDs assigned, which is also the next ID to be assigned.
+     *
+     * @return the amount of IDs assigned
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the entities, so the IDs start again from 0.
+     */
+    public synchronized void clear() {
+        ids.clear();
+        entities = new Object[16];
+        size = 0;
+    }
+}
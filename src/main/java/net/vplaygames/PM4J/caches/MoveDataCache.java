@@ -16,10 +16,6 @@
 package net.vplaygames.PM4J.caches;
 
 import net.vplaygames.PM4J.entities.Move;
-import net.vplaygames.PM4J.entities.Pokemon;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents a Cache of all the Data of all the usable Moves in Pokemon Masters.
@@ -35,6 +31,7 @@ import java.util.List;
  */
 public class MoveDataCache extends Cache<MoveDataCache.Node> {
     private static volatile MoveDataCache instance;
+    private final IdRegistry<Move> ids = new IdRegistry<>();
 
     private MoveDataCache() {}
 
@@ -47,6 +44,51 @@ public class MoveDataCache extends Cache<MoveDataCache.Node> {
         return instance == null ? instance = new MoveDataCache() : instance;
     }
 
+    /**
+     * Assigns an ID to the given Move, called by the constructor of {@link Move}.
+     * All the Moves with the same name share the ID of the first one, which is the one returned by {@link #byId(int)}.
+     *
+     * @param move the Move to be registered
+     * @return the ID of the Move
+     */
+    public int register(Move move) {
+        return ids.putIfAbsent(move.name, move);
+    }
+
+    /**
+     * Returns the Move with the given {@link Move#id ID}.
+     *
+     * @param id the ID of the Move
+     * @return the Move with the given ID, {@code null} if there is none
+     */
+    public Move byId(int id) {
+        return ids.byId(id);
+    }
+
+    /**
+     * Returns the ID of the Move with the given name.
+     *
+     * @param name the exact name of the Move
+     * @return the ID of the Move, -1 if there is none
+     */
+    public int idOf(String name) {
+        return ids.idOf(name);
+    }
+
+    /**
+     * Returns the amount of Move IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of Move IDs assigned
+     */
+    public int idCount() {
+        return ids.size();
+    }
+
+    @Override
+    void clearIds() {
+        ids.clear();
+    }
+
     /**
      * The Data Node for MoveDataCache
      *
@@ -57,7 +99,7 @@ public class MoveDataCache extends Cache<MoveDataCache.Node> {
         /** The Move this Node contains data for. */
         public final Move move;
         /** The list of Pokemon who can use the corresponding move */
-        public final List<Pokemon> users = new ArrayList<>();
+        public final PokemonSet users = new PokemonSet();
 
         public Node(Move move) {
             this.move = move;
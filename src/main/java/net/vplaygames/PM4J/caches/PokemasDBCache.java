@@ -42,11 +42,19 @@ public class PokemasDBCache extends Cache<Object> {
     }
 
     /**
-     * Clears all the caches (Move, Pokemon, Skill, ThemeSkill, Trainer Data Caches).
+     * Clears all the caches (Move, Pokemon, Skill, ThemeSkill, Trainer Data Caches),
+     * along with the {@link SerializationCache}.
+     * As nothing refers to the entities anymore, the IDs of all the entities start again from 0.
+     * <br>Clearing a single cache keeps the IDs of its entities, as the other caches still refer to them,
+     * so the entities put in it again get the same IDs as before.
      */
     public void clearCaches() {
         for (Type type : Type.values()) {
             type.getCache().clear();
         }
+        for (Type type : Type.values()) {
+            type.getCache().clearIds();
+        }
+        SerializationCache.getInstance().clear();
     }
 }
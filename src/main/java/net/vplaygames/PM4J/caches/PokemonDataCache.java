@@ -16,8 +16,12 @@
 package net.vplaygames.PM4J.caches;
 
 import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.SyncTile;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a Cache of all the Data of all the usable Pokemon in Pokemon Masters
@@ -34,6 +38,8 @@ import java.util.List;
  */
 public class PokemonDataCache extends Cache<List<Pokemon>> {
     private static volatile PokemonDataCache instance;
+    private final IdRegistry<Pokemon> ids = new IdRegistry<>();
+    private final IdRegistry<SyncTile> tileIds = new IdRegistry<>();
 
     private PokemonDataCache() {}
 
@@ -45,4 +51,86 @@ public class PokemonDataCache extends Cache<List<Pokemon>> {
     public static PokemonDataCache getInstance() {
         return instance == null ? instance = new PokemonDataCache() : instance;
     }
+
+    /**
+     * Returns all the Pokemon in this cache, each only once,
+     * as a Pokemon is present in the list of each name it contains.
+     *
+     * @return all the Pokemon in this cache
+     */
+    public Set<Pokemon> getAllPokemon() {
+        Set<Pokemon> tor = Collections.newSetFromMap(new IdentityHashMap<>());
+        values().forEach(tor::addAll);
+        return tor;
+    }
+
+    /**
+     * Assigns an ID to the given Pokemon, called by the constructor of {@link Pokemon}.
+     * A Pokemon with the same Sync Pair and name as a previously registered Pokemon gets the same ID,
+     * and replaces it in {@link #byId(int)}.
+     *
+     * @param pokemon the Pokemon to be registered
+     * @return the ID of the Pokemon
+     */
+    public int register(Pokemon pokemon) {
+        return ids.put(pokemon.syncPair + "/" + pokemon.name, pokemon);
+    }
+
+    /**
+     * Returns the Pokemon with the given {@link Pokemon#id ID}.
+     *
+     * @param id the ID of the Pokemon
+     * @return the Pokemon with the given ID, {@code null} if there is none
+     */
+    public Pokemon byId(int id) {
+        return ids.byId(id);
+    }
+
+    /**
+     * Assigns an ID to a tile of the Sync Grid of a Pokemon, called by the constructor of {@link SyncTile}.
+     * The tile at the same index of the grid of a Pokemon with the same Sync Pair and name gets the same ID.
+     *
+     * @param syncPair the Sync Pair of the Pokemon whose Sync Grid contains the tile
+     * @param name     the name of the Pokemon whose Sync Grid contains the tile
+     * @param index    the index of the tile in {@link Pokemon#grid}
+     * @param tile     the tile to be registered
+     * @return the ID of the tile
+     */
+    public int registerTile(String syncPair, String name, int index, SyncTile tile) {
+        return tileIds.put(syncPair + "/" + name + "#" + index, tile);
+    }
+
+    /**
+     * Returns the Sync Grid tile with the given {@link SyncTile#getId() ID}.
+     *
+     * @param id the ID of the tile
+     * @return the tile with the given ID, {@code null} if there is none
+     */
+    public SyncTile tileById(int id) {
+        return tileIds.byId(id);
+    }
+
+    /**
+     * Returns the amount of Sync Grid tile IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of Sync Grid tile IDs assigned
+     */
+    public int tileIdCount() {
+        return tileIds.size();
+    }
+
+    /**
+     * Returns the amount of Pokemon IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of Pokemon IDs assigned
+     */
+    public int idCount() {
+        return ids.size();
+    }
+
+    @Override
+    void clearIds() {
+        ids.clear();
+        tileIds.clear();
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import net.vplaygames.PM4J.entities.Pokemon;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * A Set of {@link Pokemon} stored as a bitmap over their {@link Pokemon#id IDs}.
+ * <br>A Pokemon takes a single bit, and the Pokemon are compared by their IDs, so a Pokemon reloaded with
+ * the same Sync Pair is only present once. Sets can be combined with {@link #and(PokemonSet) and},
+ * {@link #or(PokemonSet) or} and {@link #andNot(PokemonSet) andNot}, which work a word (64 Pokemon) at a time.
+ * For example, the Pokemon having a passive in their grid, a move and a theme skill are:-
+ * <pre><code>
+ *     PokemonSet result = PokemonSet.intersection(
+ *         SkillDataCache.getInstance().get("Critical Strike").inGrid,
+ *         MoveDataCache.getInstance().get("Thunderbolt").users,
+ *         ThemeSkillDataCache.getInstance().get("Kanto").pokemon);
+ * </code></pre>
+ * The Pokemon are resolved from their IDs using {@link PokemonDataCache#byId(int)} while iterating.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class PokemonSet extends AbstractSet<Pokemon> {
+    private long[] words;
+    private int size;
+
+    /**
+     * Constructs a new empty PokemonSet.
+     */
+    public PokemonSet() {
+        words = new long[1];
+    }
+
+    private PokemonSet(long[] words) {
+        this.words = words;
+        for (long word : words)
+            size += Long.bitCount(word);
+    }
+
+    @Override
+    public boolean add(Pokemon pokemon) {
+        return addId(pokemon.id);
+    }
+
+    /**
+     * Adds the Pokemon with the given ID to this set.
+     *
+     * @param id the ID of the Pokemon
+     * @return true if this set did not already contain the Pokemon
+     */
+    public boolean addId(int id) {
+        if (id < 0) return false;
+        int word = id >>> 6;
+        if (word >= words.length)
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        long bit = 1L << id;
+        if ((words[word] & bit) != 0) return false;
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Pokemon && containsId(((Pokemon) o).id);
+    }
+
+    /**
+     * Returns true if this set contains the Pokemon with the given ID.
+     *
+     * @param id the ID of the Pokemon
+     * @return true if this set contains the Pokemon with the given ID
+     */
+    public boolean containsId(int id) {
+        return id >= 0 && id >>> 6 < words.length && (words[id >>> 6] & 1L << id) != 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Pokemon && removeId(((Pokemon) o).id);
+    }
+
+    /**
+     * Removes the Pokemon with the given ID from this set.
+     *
+     * @param id the ID of the Pokemon
+     * @return true if this set contained the Pokemon
+     */
+    public boolean removeId(int id) {
+        if (!containsId(id)) return false;
+        words[id >>> 6] &= ~(1L << id);
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        words = new long[1];
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the IDs of the Pokemon in this set, in ascending order.
+     *
+     * @return the IDs of the Pokemon in this set
+     */
+    public IntStream ids() {
+        return IntStream.range(0, words.length << 6).filter(this::containsId);
+    }
+
+    @Override
+    public Iterator<Pokemon> iterator() {
+        return new Iterator<Pokemon>() {
+            int next = nextId(0), last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public Pokemon next() {
+                if (next == -1) throw new NoSuchElementException();
+                last = next;
+                next = nextId(next + 1);
+                return PokemonDataCache.getInstance().byId(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last == -1) throw new IllegalStateException();
+                removeId(last);
+                last = -1;
+            }
+        };
+    }
+
+    private int nextId(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) return -1;
+        long bits = words[word] & -1L << from;
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == words.length) return -1;
+            bits = words[word];
+        }
+    }
+
+    /**
+     * Returns a new set of the Pokemon present in both this set and the given set.
+     *
+     * @param other the other set
+     * @return the intersection of the sets
+     */
+    public PokemonSet and(PokemonSet other) {
+        long[] tor = Arrays.copyOf(words, Math.min(words.length, other.words.length));
+        for (int i = 0; i < tor.length; i++)
+            tor[i] &= other.words[i];
+        return new PokemonSet(tor);
+    }
+
+    /**
+     * Returns a new set of the Pokemon present in this set, the given set or both.
+     *
+     * @param other the other set
+     * @return the union of the sets
+     */
+    public PokemonSet or(PokemonSet other) {
+        long[] tor = Arrays.copyOf(words, Math.max(words.length, other.words.length));
+        for (int i = 0; i < other.words.length; i++)
+            tor[i] |= other.words[i];
+        return new PokemonSet(tor);
+    }
+
+    /**
+     * Returns a new set of the Pokemon present in this set but not in the given set.
+     *
+     * @param other the other set
+     * @return the difference of the sets
+     */
+    public PokemonSet andNot(PokemonSet other) {
+        long[] tor = words.clone();
+        for (int i = 0; i < Math.min(tor.length, other.words.length); i++)
+            tor[i] &= ~other.words[i];
+        return new PokemonSet(tor);
+    }
+
+    /**
+     * Returns a new set of the Pokemon present in all the given sets.
+     * The sets are intersected from the smallest, so the result is narrowed down as early as possible.
+     *
+     * @param sets the sets to intersect
+     * @return the intersection of the sets, empty if no sets are given
+     */
+    public static PokemonSet intersection(PokemonSet... sets) {
+        if (sets.length == 0) return new PokemonSet();
+        PokemonSet[] sorted = sets.clone();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.size, b.size));
+        PokemonSet tor = sorted[0].copy();
+        for (int i = 1; i < sorted.length && !tor.isEmpty(); i++)
+            tor = tor.and(sorted[i]);
+        return tor;
+    }
+
+    // the amount of words of the bitmap, used to estimate its size
+    int wordCount() {
+        return words.length;
+    }
+
+    /**
+     * Returns a copy of this set.
+     *
+     * @return a copy of this set
+     */
+    public PokemonSet copy() {
+        return new PokemonSet(words.clone());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bookkeeping of a {@link CachePolicy} for a single {@link Cache}: the recency order,
+ * the weight and the times of each entry, and the frequency sketch of {@link CachePolicy.Eviction#TINY_LFU}.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+class PolicyState<V> {
+    private static final int CLEAN_UP_BATCH = 4;
+    final CachePolicy<V> policy;
+    private final Cache<V> cache;
+    // the window of TinyLFU, unused by LRU, and the rest of the entries, both in access order
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final long windowMaximum;
+    private long windowWeight, weight;
+
+    PolicyState(Cache<V> cache, CachePolicy<V> policy) {
+        this.cache = cache;
+        this.policy = policy;
+        boolean tinyLFU = policy.eviction == CachePolicy.Eviction.TINY_LFU && policy.maximum != Long.MAX_VALUE;
+        this.sketch = tinyLFU ? new FrequencySketch((int) Math.min(policy.maximum, 1 << 20)) : null;
+        this.windowMaximum = tinyLFU ? Math.max(1, policy.maximum / 100) : 0;
+    }
+
+    // looks up the entry, which also moves it to the end of the access order
+    private Entry entry(String key) {
+        Entry tor = window.get(key);
+        return tor == null ? main.get(key) : tor;
+    }
+
+    boolean isExpired(String key) {
+        Entry e = entry(key);
+        return e != null && isExpired(e, policy.ticker.getAsLong());
+    }
+
+    private boolean isExpired(Entry e, long now) {
+        return now - e.writeTime >= policy.expireAfterWrite || now - e.accessTime >= policy.expireAfterAccess;
+    }
+
+    // the frequencies are counted by the key the cache compares, so a lookup counts for the entry it finds, or would find
+    void recordLookup(String key) {
+        if (sketch != null) sketch.increment(cache.sketchKey(key));
+    }
+
+    void onRead(String key) {
+        Entry e = entry(key);
+        if (e != null) e.accessTime = policy.ticker.getAsLong();
+    }
+
+    void onWrite(String key, V value) {
+        long now = policy.ticker.getAsLong();
+        Entry e = entry(key);
+        long w = policy.weigher.applyAsLong(value);
+        if (e == null) {
+            e = new Entry(w);
+            (sketch == null ? main : window).put(key, e);
+            if (sketch != null) windowWeight += w;
+            recordLookup(key);
+        } else {
+            if (window.containsKey(key)) windowWeight += w - e.weight;
+            weight -= e.weight;
+            e.weight = w;
+        }
+        e.writeTime = e.accessTime = now;
+        weight += w;
+        expireSome(now);
+        evict();
+    }
+
+    void onRemove(String key) {
+        Entry e = window.remove(key);
+        if (e != null) windowWeight -= e.weight;
+        else e = main.remove(key);
+        if (e != null) weight -= e.weight;
+    }
+
+    void clear() {
+        window.clear();
+        main.clear();
+        windowWeight = weight = 0;
+    }
+
+    // removes the expired entries among the least recently used ones, so expired entries do not pile up
+    private void expireSome(long now) {
+        if (policy.expireAfterWrite == Long.MAX_VALUE && policy.expireAfterAccess == Long.MAX_VALUE) return;
+        for (LinkedHashMap<String, Entry> segment : Arrays.asList(window, main)) {
+            List<String> expired = new ArrayList<>();
+            Iterator<Map.Entry<String, Entry>> it = segment.entrySet().iterator();
+            for (int i = 0; i < CLEAN_UP_BATCH && it.hasNext(); i++) {
+                Map.Entry<String, Entry> e = it.next();
+                if (isExpired(e.getValue(), now)) expired.add(e.getKey());
+            }
+            expired.forEach(key -> cache.evict(key, CachePolicy.RemovalCause.EXPIRED));
+        }
+    }
+
+    void cleanUp() {
+        long now = policy.ticker.getAsLong();
+        List<String> expired = new ArrayList<>();
+        window.forEach((k, e) -> { if (isExpired(e, now)) expired.add(k); });
+        main.forEach((k, e) -> { if (isExpired(e, now)) expired.add(k); });
+        expired.forEach(key -> cache.evict(key, CachePolicy.RemovalCause.EXPIRED));
+    }
+
+    private void evict() {
+        // entries leaving the window become candidates for the main segment
+        while (windowWeight > windowMaximum && !window.isEmpty()) {
+            Map.Entry<String, Entry> eldest = window.entrySet().iterator().next();
+            window.remove(eldest.getKey());
+            windowWeight -= eldest.getValue().weight;
+            main.put(eldest.getKey(), eldest.getValue());
+            if (weight > policy.maximum) admit(eldest.getKey());
+        }
+        while (weight > policy.maximum) {
+            LinkedHashMap<String, Entry> segment = main.isEmpty() ? window : main;
+            if (segment.isEmpty()) return;
+            cache.evict(segment.keySet().iterator().next(), CachePolicy.RemovalCause.SIZE);
+        }
+    }
+
+    // evicts either the candidate or the least recently used entry of the main segment, whichever is used less often
+    private void admit(String candidate) {
+        Iterator<String> it = main.keySet().iterator();
+        String victim = it.next();
+        if (victim.equals(candidate)) {
+            cache.evict(candidate, CachePolicy.RemovalCause.SIZE);
+            return;
+        }
+        boolean admitted = sketch.frequency(cache.sketchKey(candidate)) > sketch.frequency(cache.sketchKey(victim));
+        cache.evict(admitted ? victim : candidate, CachePolicy.RemovalCause.SIZE);
+    }
+
+    private static class Entry {
+        long weight, writeTime, accessTime;
+
+        Entry(long weight) {
+            this.weight = weight;
+        }
+    }
+}
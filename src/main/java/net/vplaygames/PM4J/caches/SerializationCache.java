@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.caches;
+
+import net.vplaygames.vjson.JSONable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Represents a Cache of the serialized form of entities, as the UTF-8 bytes of their JSON,
+ * and optionally the gzip compressed form of those bytes.
+ * <br>The entities are immutable, so the bytes of an entity are computed only once and returned as is
+ * until they are evicted or the data is reloaded using {@link PokemasDBCache#clearCaches()}.
+ * The entities are compared by their identity, so a reloaded entity is always serialized again.
+ * This cache is bounded by the total size of the bytes it holds, and evicts the least recently used entities first.
+ * <br>Using this cache is optional, the {@link JSONable#toJSONString() toJSONString} methods of the entities do not use it.
+ * For example:-
+ * <pre><code>
+ *     byte[] body = SerializationCache.getInstance().getGzipped(trainer);
+ * </code></pre>
+ * All the methods of this class are thread-safe.
+ * The returned arrays are shared, so they must not be modified.
+ *
+ * This class is a Singleton Class, which means it can only be initialized once.
+ * The instance is returned by the {@link #getInstance()} method.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class SerializationCache {
+    /** The default maximum size of the bytes held, 32 MiB. */
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+    private static volatile SerializationCache instance;
+    private final LinkedHashMap<JSONable, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long bytes;
+    private long hits, misses, evictions;
+
+    private SerializationCache() {}
+
+    /**
+     * Returns the Singleton Instance
+     *
+     * @return the Singleton Instance
+     */
+    public static SerializationCache getInstance() {
+        return instance == null ? instance = new SerializationCache() : instance;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the JSON of the given entity.
+     *
+     * @param entity the entity
+     * @return the UTF-8 bytes of the JSON of the given entity
+     */
+    public byte[] getBytes(JSONable entity) {
+        synchronized (this) {
+            Entry entry = entries.get(entity);
+            if (entry != null) {
+                hits++;
+                return entry.bytes;
+            }
+            misses++;
+        }
+        byte[] tor = entity.toJSONString().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            Entry entry = entries.get(entity);
+            if (entry != null) return entry.bytes;
+            store(entity, new Entry(tor));
+        }
+        return tor;
+    }
+
+    /**
+     * Returns the gzip compressed UTF-8 bytes of the JSON of the given entity.
+     *
+     * @param entity the entity
+     * @return the gzip compressed UTF-8 bytes of the JSON of the given entity
+     */
+    public byte[] getGzipped(JSONable entity) {
+        byte[] plain = getBytes(entity);
+        synchronized (this) {
+            Entry entry = entries.get(entity);
+            if (entry != null && entry.gzipped != null) return entry.gzipped;
+        }
+        byte[] tor = gzip(plain);
+        synchronized (this) {
+            Entry entry = entries.get(entity);
+            if (entry == null) return tor;
+            if (entry.gzipped == null) {
+                entry.gzipped = tor;
+                bytes += tor.length;
+                evict();
+            }
+            return entry.gzipped;
+        }
+    }
+
+    private static byte[] gzip(byte[] plain) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void store(JSONable entity, Entry entry) {
+        if (entry.size() > maxBytes) return;
+        entries.put(entity, entry);
+        bytes += entry.size();
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<JSONable, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().size();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets the maximum total size of the bytes held, evicting the least recently used entities if needed.
+     *
+     * @param maxBytes the maximum total size of the bytes held
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /**
+     * Returns the maximum total size of the bytes held.
+     *
+     * @return the maximum total size of the bytes held
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the total size of the bytes held.
+     *
+     * @return the total size of the bytes held
+     */
+    public synchronized long getSizeInBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the amount of entities whose bytes are held.
+     *
+     * @return the amount of entities whose bytes are held
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the amount of times the bytes of an entity were found in this cache.
+     *
+     * @return the amount of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the amount of times the bytes of an entity had to be computed.
+     *
+     * @return the amount of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the amount of entities evicted to stay within the maximum size.
+     *
+     * @return the amount of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes the bytes of the given entity.
+     *
+     * @param entity the entity
+     */
+    public synchronized void invalidate(JSONable entity) {
+        Entry entry = entries.remove(entity);
+        if (entry != null) bytes -= entry.size();
+    }
+
+    /**
+     * Removes the bytes of all the entities.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private static class Entry {
+        final byte[] bytes;
+        byte[] gzipped;
+
+        Entry(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long size() {
+            return bytes.length + (gzipped == null ? 0 : gzipped.length);
+        }
+    }
+}
@@ -15,11 +15,18 @@
  */
 package net.vplaygames.PM4J.caches;
 
+import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.PM4J.entities.Passive;
 import net.vplaygames.PM4J.entities.Pokemon;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * Represents a Cache of all the Data of all the usable Passive Skills in Pokemon Masters,
@@ -28,6 +35,10 @@ import java.util.Set;
  * This class is a Singleton Class, which means it can only be initialized once.
  * The instance is returned by the {@link #getInstance()} method.
  * This Cache caches the data in a {@link Cache} which is an inheritor of {@link java.util.HashMap}.
+ * <br>The nodes are also indexed by the {@link Passive#family family} and {@link Passive#level level} of their skill,
+ * so queries like "all the Pokemon with Attack Up 3 or higher" are answered with {@link #getFamily(String)}.
+ * Families are matched ignoring case and non-alphanumeric characters, so {@code Attack Up+ 3} and {@code Attack Up 3}
+ * are both in the family {@code Attack Up} at level 3. The index is kept in sync as nodes are replaced or removed.
  *
  * @author Vaibhav Nargwani
  * @since 1.0.0
@@ -36,6 +47,8 @@ import java.util.Set;
  */
 public class SkillDataCache extends Cache<SkillDataCache.Node> {
     private static volatile SkillDataCache instance;
+    private final IdRegistry<Passive> ids = new IdRegistry<>();
+    private final Map<String, Family> families = new HashMap<>();
 
     private SkillDataCache() {}
 
@@ -48,6 +61,113 @@ public class SkillDataCache extends Cache<SkillDataCache.Node> {
         return instance == null ? instance = new SkillDataCache() : instance;
     }
 
+    /**
+     * Assigns an ID to the given Passive, called by the constructor of {@link Passive}.
+     * All the Passives with the same name share the ID of the first one, which is the one returned by {@link #byId(int)}.
+     *
+     * @param passive the Passive to be registered
+     * @return the ID of the Passive
+     */
+    public int register(Passive passive) {
+        return ids.putIfAbsent(passive.name, passive);
+    }
+
+    /**
+     * Puts the given node in this cache and in the index of the family of its skill,
+     * removing the node it replaces from that index.
+     */
+    @Override
+    public Node put(String key, Node value) {
+        Node tor = super.put(key, value);
+        if (tor == value) return tor;
+        if (tor != null) unindex(tor);
+        Passive skill = value.skill;
+        families.computeIfAbsent(familyKey(skill.family), k -> new Family(skill.family)).levels
+            .computeIfAbsent(skill.level, k -> new ArrayList<>(1)).add(value);
+        return tor;
+    }
+
+    @Override
+    void removed(String key, Node value) {
+        unindex(value);
+    }
+
+    // removes the node from the index of the family of its skill
+    private void unindex(Node node) {
+        String key = familyKey(node.skill.family);
+        Family family = families.get(key);
+        if (family == null) return;
+        List<Node> nodes = family.levels.get(node.skill.level);
+        if (nodes != null && nodes.remove(node) && nodes.isEmpty()) family.levels.remove(node.skill.level);
+        if (family.levels.isEmpty()) families.remove(key);
+    }
+
+    private static String familyKey(String family) {
+        return Util.reduceToAlphanumeric(family).toLowerCase();
+    }
+
+    /**
+     * Returns the family of Passive Skills with the given name, ignoring case and non-alphanumeric characters.
+     *
+     * @param family the name of the family, like {@code Attack Up}
+     * @return the family with the given name, {@code null} if there is none
+     */
+    public Family getFamily(String family) {
+        return families.get(familyKey(family));
+    }
+
+    /**
+     * Returns all the families of Passive Skills in this cache.
+     *
+     * @return all the families of Passive Skills
+     */
+    public Collection<Family> getFamilies() {
+        return Collections.unmodifiableCollection(families.values());
+    }
+
+    /**
+     * Returns the Passive with the given {@link Passive#id ID}.
+     *
+     * @param id the ID of the Passive
+     * @return the Passive with the given ID, {@code null} if there is none
+     */
+    public Passive byId(int id) {
+        return ids.byId(id);
+    }
+
+    /**
+     * Returns the ID of the Passive with the given name.
+     *
+     * @param name the exact name of the Passive
+     * @return the ID of the Passive, -1 if there is none
+     */
+    public int idOf(String name) {
+        return ids.idOf(name);
+    }
+
+    /**
+     * Returns the amount of Passive IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of Passive IDs assigned
+     */
+    public int idCount() {
+        return ids.size();
+    }
+
+    /**
+     * Clears this cache, along with the index of the families.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        families.clear();
+    }
+
+    @Override
+    void clearIds() {
+        ids.clear();
+    }
+
     /**
      * The Data Node for SkillDataCache
      *
@@ -58,9 +178,9 @@ public class SkillDataCache extends Cache<SkillDataCache.Node> {
         /** The Skill for which this Node contains data for. */
         public final Passive skill;
         /** The names of Sync Pairs who have the corresponding skill in their default Passives. */
-        public final Set<Pokemon> inbuilt = new HashSet<>();
+        public final PokemonSet inbuilt = new PokemonSet();
         /** The names of Sync Pairs who have the corresponding skill in their Sync Grid. */
-        public final Set<Pokemon> inGrid = new HashSet<>();
+        public final PokemonSet inGrid = new PokemonSet();
 
         public Node(Passive skill) {
             this.skill = skill;
@@ -78,4 +198,77 @@ public class SkillDataCache extends Cache<SkillDataCache.Node> {
             return this;
         }
     }
+
+    /**
+     * A family of Passive Skills which only differ by their level, like {@code Attack Up 1} to {@code Attack Up 9}.
+     * A skill without a level is present in its family at level 0.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Family {
+        /** The name of this family. */
+        public final String name;
+        final NavigableMap<Integer, List<Node>> levels = new TreeMap<>();
+
+        Family(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the nodes of the skills of this family, by their level.
+         * Many skills can have the same level, like {@code Attack Up 3} and {@code Attack Up+ 3}.
+         *
+         * @return a copy of the nodes of the skills of this family, sorted by their level
+         */
+        public NavigableMap<Integer, List<Node>> getLevels() {
+            NavigableMap<Integer, List<Node>> tor = new TreeMap<>();
+            levels.forEach((level, nodes) -> tor.put(level, Collections.unmodifiableList(new ArrayList<>(nodes))));
+            return Collections.unmodifiableNavigableMap(tor);
+        }
+
+        /**
+         * Returns the Pokemon having a skill of this family of at least the given level,
+         * either in their default Passives or in their Sync Grid.
+         *
+         * @param level the minimum level
+         * @return the Pokemon having a skill of this family of at least the given level
+         */
+        public PokemonSet atLeast(int level) {
+            return between(level, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Returns the Pokemon having a skill of this family of at least the given level,
+         * in either their default Passives or their Sync Grid, as specified.
+         *
+         * @param level  the minimum level
+         * @param isGrid if true only the Sync Grids are considered, otherwise only the default Passives
+         * @return the Pokemon having a skill of this family of at least the given level
+         */
+        public PokemonSet atLeast(int level, boolean isGrid) {
+            PokemonSet tor = new PokemonSet();
+            for (List<Node> nodes : levels.tailMap(level, true).values())
+                for (Node node : nodes)
+                    tor = tor.or(isGrid ? node.inGrid : node.inbuilt);
+            return tor;
+        }
+
+        /**
+         * Returns the Pokemon having a skill of this family with a level between the given levels (both inclusive),
+         * either in their default Passives or in their Sync Grid.
+         *
+         * @param min the minimum level
+         * @param max the maximum level
+         * @return the Pokemon having a skill of this family between the given levels
+         */
+        public PokemonSet between(int min, int max) {
+            PokemonSet tor = new PokemonSet();
+            if (min > max) return tor;
+            for (List<Node> nodes : levels.subMap(min, true, max, true).values())
+                for (Node node : nodes)
+                    tor = tor.or(node.inbuilt).or(node.inGrid);
+            return tor;
+        }
+    }
 }
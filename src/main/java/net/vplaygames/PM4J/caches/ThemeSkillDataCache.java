@@ -15,12 +15,8 @@
  */
 package net.vplaygames.PM4J.caches;
 
-import net.vplaygames.PM4J.entities.Pokemon;
 import net.vplaygames.PM4J.entities.ThemeSkill;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Represents a Cache of all the Data of all the usable Theme Skills in Pokemon Masters EX.
  *
@@ -35,6 +31,7 @@ import java.util.List;
  */
 public class ThemeSkillDataCache extends Cache<ThemeSkillDataCache.Node> {
     private static volatile ThemeSkillDataCache instance;
+    private final IdRegistry<ThemeSkill> ids = new IdRegistry<>();
 
     private ThemeSkillDataCache() {}
 
@@ -47,6 +44,51 @@ public class ThemeSkillDataCache extends Cache<ThemeSkillDataCache.Node> {
         return instance == null ? instance = new ThemeSkillDataCache() : instance;
     }
 
+    /**
+     * Assigns an ID to the given ThemeSkill, called by the constructor of {@link ThemeSkill}.
+     * All the ThemeSkills with the same name share the ID of the first one, which is the one returned by {@link #byId(int)}.
+     *
+     * @param skill the ThemeSkill to be registered
+     * @return the ID of the ThemeSkill
+     */
+    public int register(ThemeSkill skill) {
+        return ids.putIfAbsent(skill.name, skill);
+    }
+
+    /**
+     * Returns the ThemeSkill with the given {@link ThemeSkill#id ID}.
+     *
+     * @param id the ID of the ThemeSkill
+     * @return the ThemeSkill with the given ID, {@code null} if there is none
+     */
+    public ThemeSkill byId(int id) {
+        return ids.byId(id);
+    }
+
+    /**
+     * Returns the ID of the ThemeSkill with the given name.
+     *
+     * @param name the exact name of the ThemeSkill
+     * @return the ID of the ThemeSkill, -1 if there is none
+     */
+    public int idOf(String name) {
+        return ids.idOf(name);
+    }
+
+    /**
+     * Returns the amount of ThemeSkill IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of ThemeSkill IDs assigned
+     */
+    public int idCount() {
+        return ids.size();
+    }
+
+    @Override
+    void clearIds() {
+        ids.clear();
+    }
+
     /**
      * The Data Node for ThemeSkillDataCache
      *
@@ -57,7 +99,7 @@ public class ThemeSkillDataCache extends Cache<ThemeSkillDataCache.Node> {
         /** The Theme Skill for which this Node contains data for. */
         public final ThemeSkill skill;
         /** The names of Sync Pairs who have the corresponding theme skill. */
-        public final List<Pokemon> pokemon = new ArrayList<>();
+        public final PokemonSet pokemon = new PokemonSet();
 
         public Node(ThemeSkill skill) {
             this.skill = skill;
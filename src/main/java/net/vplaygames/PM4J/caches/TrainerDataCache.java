@@ -23,6 +23,15 @@ import net.vplaygames.PM4J.entities.Trainer;
  * This class is a Singleton Class, which means it can only be initialized once.
  * The instance is returned by the {@link #getInstance()} method.
  * This Cache caches the data in a {@link Cache} which is an inheritor of {@link java.util.HashMap}.
+ * <br>The Caches are not thread-safe, and parsing or reading any entity puts it and its parts in them.
+ * So everything in this library which parses entities, including the Pokemon of a lazily parsed Trainer,
+ * does so while holding the lock of this instance, and code using the Caches from many threads should do the same.
+ * For example:-
+ * <pre><code>
+ *     synchronized (TrainerDataCache.getInstance()) {
+ *         Trainer red = TrainerDataCache.getInstance().get("Red");
+ *     }
+ * </code></pre>
  *
  * @author Vaibhav Nargwani
  * @since 1.0.0
@@ -30,7 +39,9 @@ import net.vplaygames.PM4J.entities.Trainer;
  * @see java.util.HashMap
  */
 public class TrainerDataCache extends Cache<Trainer> {
-    private static volatile TrainerDataCache instance;
+    // created eagerly, as its lock is shared by all the threads parsing entities
+    private static final TrainerDataCache instance = new TrainerDataCache();
+    private final IdRegistry<Trainer> ids = new IdRegistry<>();
 
     private TrainerDataCache() {}
 
@@ -40,6 +51,51 @@ public class TrainerDataCache extends Cache<Trainer> {
      * @return the Singleton Instance and logs any processes
      */
     public static TrainerDataCache getInstance() {
-        return instance == null ? instance = new TrainerDataCache() : instance;
+        return instance;
+    }
+
+    /**
+     * Assigns an ID to the given Trainer, called by the constructor of {@link Trainer}.
+     * A Trainer with the same name as a previously registered Trainer gets the same ID, and replaces it in {@link #byId(int)}.
+     *
+     * @param trainer the Trainer to be registered
+     * @return the ID of the Trainer
+     */
+    public int register(Trainer trainer) {
+        return ids.put(trainer.name, trainer);
+    }
+
+    /**
+     * Returns the Trainer with the given {@link Trainer#id ID}.
+     *
+     * @param id the ID of the Trainer
+     * @return the Trainer with the given ID, {@code null} if there is none
+     */
+    public Trainer byId(int id) {
+        return ids.byId(id);
+    }
+
+    /**
+     * Returns the ID of the Trainer with the given name.
+     *
+     * @param name the exact name of the Trainer
+     * @return the ID of the Trainer, -1 if there is none
+     */
+    public int idOf(String name) {
+        return ids.idOf(name);
+    }
+
+    /**
+     * Returns the amount of Trainer IDs assigned, all the IDs being less than it.
+     *
+     * @return the amount of Trainer IDs assigned
+     */
+    public int idCount() {
+        return ids.size();
+    }
+
+    @Override
+    void clearIds() {
+        ids.clear();
     }
 }
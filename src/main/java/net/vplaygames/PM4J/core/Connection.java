@@ -15,6 +15,8 @@
  */
 package net.vplaygames.PM4J.core;
 
+import net.vplaygames.PM4J.caches.Cache;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
 import net.vplaygames.PM4J.entities.Trainer;
 import net.vplaygames.PM4J.exceptions.ConnectionClosedException;
 import net.vplaygames.PM4J.exceptions.TrainerNotFoundException;
@@ -26,10 +28,19 @@ import okhttp3.Response;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 import static net.vplaygames.PM4J.core.Logger.Mode.DEBUG;
 import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
@@ -72,6 +83,18 @@ import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
  *             }
  *         </code></pre>
  *     </li>
+ *     <li>the trainers with their Pokemon, one by one, as they are downloaded.
+ *         For example:-
+ *         <pre><code>
+ *             try (Connection conn = new Connection()) {
+ *                 conn.streamAllTrainers(true).forEach(trainer -&gt; {
+ *                     // use the trainer
+ *                 });
+ *             } catch (Exception e) {
+ *                 e.printStackTrace();
+ *             }
+ *         </code></pre>
+ *     </li>
  * </ul>
  * This class implements {@link Closeable}, so it can be used with
  * {@code try}-with-resources block, as shown in the examples given above.
@@ -81,8 +104,20 @@ import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
  */
 public class Connection implements Closeable {
     static Logger logger = new Logger(Connection.class);
+    /** The maximum amount of URLs whose statistics are kept by a Connection. */
+    public static final int MAX_FLIGHT_STATS = 1024;
     OkHttpClient client;
     String baseURL;
+    // the requests and parses in progress, shared by the concurrent calls for the same URL
+    private final Map<String, CompletableFuture<Flight>> requests = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Trainer>> parses = new ConcurrentHashMap<>();
+    // the statistics of the most recently requested URLs, dropping the least recently requested one when full
+    private final Map<String, FlightStats> stats = Collections.synchronizedMap(new LinkedHashMap<String, FlightStats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FlightStats> eldest) {
+            return size() > MAX_FLIGHT_STATS;
+        }
+    });
 
     /**
      * Constructs a new Connection object and uses HTTPS by default.
@@ -114,6 +149,19 @@ public class Connection implements Closeable {
         baseURL = Routes.TRAINER_ENDPOINT_URL.replaceFirst(useHTTPS ? "" : "s", "");
     }
 
+    /**
+     * Constructs a new Connection object with the given <code>OkHttpClient</code>
+     * which requests the data from the given URL instead of PokemasDB,
+     * like the one of a {@link MirrorServer}.
+     *
+     * @param okHttpClient the <code>OkHttpClient</code> which will be used to communicate with the Internet.
+     * @param baseURL      the URL of the Trainer Endpoint to be used, like {@code http://localhost:8080/trainer/}
+     */
+    public Connection(OkHttpClient okHttpClient, String baseURL) {
+        client = Objects.requireNonNull(okHttpClient, "OkHttpClient cannot be null!");
+        this.baseURL = baseURL.endsWith("/") ? baseURL : baseURL + "/";
+    }
+
     /**
      * Requests and returns the trainer list at the <a href="https://www.pokemasdb.com/trainer/">Trainer Endpoint</a>.
      * Usage example:-
@@ -133,14 +181,10 @@ public class Connection implements Closeable {
      *                                   remote server accepted the request before the failure.
      * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
      */
-    @SuppressWarnings("ConstantConditions")
     public String requestTrainerList() throws IOException {
         checkClosed();
-        try (Response response = requestData("")) {
-            if (response.code() >= 400)
-                throw new IOException("An unexpected error has occurred! " + baseURL + " returned HTTP Code " + response.code());
-            return response.body().string();
-        }
+        String url = baseURL;
+        return requestData("", code -> new IOException("An unexpected error has occurred! " + url + " returned HTTP Code " + code));
     }
 
     /**
@@ -166,13 +210,77 @@ public class Connection implements Closeable {
      * @throws TrainerNotFoundException  if HTTP code received is 400 or greater.
      * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
      */
-    @SuppressWarnings("ConstantConditions")
     public String requestTrainer(String trainer) throws IOException {
         checkClosed();
-        try (Response response = requestData(Trainer.resolve(trainer))) {
-            if (response.code() >= 400)
-                throw new TrainerNotFoundException(response.code(), baseURL + Trainer.resolve(trainer));
-            return response.body().string();
+        String url = baseURL + Trainer.resolve(trainer);
+        return requestData(Trainer.resolve(trainer), code -> new TrainerNotFoundException(code, url));
+    }
+
+    /**
+     * Requests the data of a particular trainer and parses it into a {@link Trainer}.
+     * Concurrent calls for the same trainer share a single request and a single parse, and all get the same Trainer.
+     * The data is parsed while holding the lock of the {@link TrainerDataCache} instance, see there.
+     *
+     * @param trainer the trainer to be searched for.
+     * @return the Trainer requested
+     * @throws IOException               if the request could not be executed due to cancellation, a connectivity
+     *                                   problem or timeout.
+     * @throws TrainerNotFoundException  if HTTP code received is 400 or greater.
+     * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
+     */
+    public Trainer requestParsedTrainer(String trainer) throws IOException {
+        checkClosed();
+        String url = baseURL + Trainer.resolve(trainer);
+        CompletableFuture<Trainer> mine = new CompletableFuture<>();
+        CompletableFuture<Trainer> shared = parses.putIfAbsent(url, mine);
+        if (shared != null) {
+            FlightStats flightStats = stats(url);
+            flightStats.calls.increment();
+            flightStats.collapsed.increment();
+            return await(shared);
+        }
+        try {
+            String data = requestTrainer(trainer);
+            Trainer tor;
+            synchronized (TrainerDataCache.getInstance()) {
+                tor = Trainer.parse(data);
+            }
+            mine.complete(tor);
+            return tor;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            parses.remove(url, mine);
+        }
+    }
+
+    /**
+     * Returns the statistics of the requests made by this Connection, by URL.
+     * Only the {@value #MAX_FLIGHT_STATS} most recently requested URLs are kept.
+     *
+     * @return a copy of the statistics of the requests, by URL, from the least to the most recently requested
+     */
+    public Map<String, FlightStats> getFlightStats() {
+        synchronized (stats) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(stats));
+        }
+    }
+
+    private FlightStats stats(String url) {
+        return stats.computeIfAbsent(url, k -> new FlightStats());
+    }
+
+    // waits for a request or a parse made by another thread, rethrowing its exception
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw new IOException(cause.getMessage(), cause);
+            if (cause instanceof TrainerNotFoundException) throw (TrainerNotFoundException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
         }
     }
 
@@ -199,46 +307,138 @@ public class Connection implements Closeable {
      * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
      */
     public List<Trainer> requestAllTrainers(boolean log) throws IOException, TrainerNotFoundException {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        List<Trainer> trainers = streamAllTrainers(log).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        if (log) logger.log("Downloaded data for all the trainers.", INFO);
+        if (timed) Metrics.getInstance().refreshCompleted(Cache.Type.TRAINER, System.nanoTime() - start);
+        return trainers;
+    }
+
+    /**
+     * Requests the list of trainers and returns a {@link Stream} which downloads and parses the data of each trainer
+     * only when the stream reaches it, so that each trainer can be used as soon as it is available
+     * instead of waiting for all of them to be downloaded.
+     * Only one trainer is downloaded at a time and the stream does not hold on to the trainers it has already returned,
+     * so consuming it slowly also slows down the downloading.
+     * For example:-
+     * <pre><code>
+     *     try (Connection conn = new Connection()) {
+     *         conn.streamAllTrainers(false).forEach(trainer -&gt; {
+     *             // use the trainer
+     *         });
+     *     } catch (Exception e) {
+     *         e.printStackTrace();
+     *     }
+     * </code></pre>
+     * The stream can also be consumed using its {@link Stream#iterator() iterator}.
+     * Like {@link #requestParsedTrainer(String)}, each trainer is parsed while holding the lock of the
+     * {@link TrainerDataCache} instance.
+     *
+     * @param log to log the details or not.
+     * @return a sequential {@link Stream} of the data of all trainers available from the
+     * <a href="https://www.pokemasdb.com/trainer/">Trainer Endpoint</a>.
+     * @throws IOException               if the list of trainers could not be requested due to cancellation,
+     *                                   a connectivity problem or timeout.
+     * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
+     * @see #requestAllTrainers(boolean)
+     */
+    public Stream<Trainer> streamAllTrainers(boolean log) throws IOException {
         checkClosed();
         if (log) logger.log("Downloading the list of trainers.", DEBUG);
-        String trainerList = requestTrainerList();
+        List<String> names = requestTrainerNames();
         if (log) {
             logger.log("Downloaded the list of all trainers.", INFO);
             logger.log("Downloading Trainer Data.", DEBUG);
         }
-        List<Trainer> trainers = JSONObject.parse(trainerList)
+        return names.stream().map(name -> {
+            Trainer tor;
+            try {
+                String data = requestTrainer(name);
+                synchronized (TrainerDataCache.getInstance()) {
+                    tor = Trainer.parse(data);
+                }
+                if (log)
+                    logger.log(() -> "Downloaded " + name + "'s Data", DEBUG);
+            } catch (IOException exc) {
+                throw new TrainerNotFoundException(name, exc);
+            }
+            return tor;
+        });
+    }
+
+    /**
+     * Requests the list of trainers at the <a href="https://www.pokemasdb.com/trainer/">Trainer Endpoint</a>
+     * and returns their names, without parsing them into Trainers.
+     *
+     * @return the names of all the trainers
+     * @throws IOException               if the request could not be executed due to cancellation, a connectivity
+     *                                   problem or timeout.
+     * @throws ConnectionClosedException if this method was called after calling the {@link #close() close} method.
+     */
+    public List<String> requestTrainerNames() throws IOException {
+        return JSONObject.parse(requestTrainerList())
             .asObject()
             .get("trainers")
-            .asList(Trainer::parse)
-            .stream()
-            .map(trainer -> {
-                Trainer tor;
-                try {
-                    tor = Trainer.parse(requestTrainer(trainer.name));
-                    if (log)
-                        logger.log("Downloaded " + trainer.name + "'s Data", DEBUG);
-                } catch (IOException exc) {
-                    throw new TrainerNotFoundException(trainer.name, exc);
-                }
-                return tor;
-            })
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-        if (log) logger.log("Downloaded data for all the trainers.", INFO);
-        return trainers;
+            .asList(trainer -> trainer.asObject().get("name").asString());
     }
 
     /**
      * Requests data from the <a href="https://www.pokemasdb.com/trainer/">Trainer Endpoint</a>
+     * and reports the request to the active {@link Metrics} instance.
+     * Concurrent calls for the same URL share a single request.
      *
      * @param restOfTheURL the endpoint to hit
-     * @return the {@code Response} received
+     * @param onError      creates the exception to throw if HTTP code received is 400 or greater
+     * @param <E>          the type of the exception created by {@code onError}
+     * @return the body of the {@code Response} received
      * @throws IOException if the request could not be executed due to cancellation, a connectivity
      *                     problem or timeout. Because networks can fail during an exchange, it is possible that the
      *                     remote server accepted the request before the failure.
+     * @throws E           if HTTP code received is 400 or greater.
      */
-    private Response requestData(String restOfTheURL) throws IOException {
+    private <E extends Exception> String requestData(String restOfTheURL, IntFunction<E> onError) throws IOException, E {
         checkClosed();
-        return client.newCall(new Request.Builder().url(baseURL + restOfTheURL).build()).execute();
+        String url = baseURL + restOfTheURL;
+        FlightStats flightStats = stats(url);
+        flightStats.calls.increment();
+        Flight flight;
+        CompletableFuture<Flight> mine = new CompletableFuture<>();
+        CompletableFuture<Flight> shared = requests.putIfAbsent(url, mine);
+        if (shared != null) {
+            flightStats.collapsed.increment();
+            flight = await(shared);
+        } else {
+            try {
+                flight = execute(url);
+                mine.complete(flight);
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                requests.remove(url, mine);
+            }
+        }
+        if (flight.code >= 400)
+            throw onError.apply(flight.code);
+        return new String(flight.body, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private Flight execute(String url) throws IOException {
+        Metrics metrics = Metrics.getInstance();
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        Flight tor;
+        try (Response response = client.newCall(new Request.Builder().url(url).build()).execute()) {
+            int code = response.code();
+            tor = new Flight(code, code >= 400 ? new byte[0] : response.body().bytes());
+        } catch (IOException e) {
+            if (timed) metrics.requestFailed(url, System.nanoTime() - start, e);
+            throw e;
+        }
+        if (timed) metrics.requestCompleted(url, tor.code, System.nanoTime() - start, tor.body.length);
+        return tor;
     }
 
     /**
@@ -256,4 +456,49 @@ public class Connection implements Closeable {
         client = null;
         baseURL = null;
     }
+
+    // the response of a request, shared by the calls waiting for it
+    private static class Flight {
+        final int code;
+        final byte[] body;
+
+        Flight(int code, byte[] body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    /**
+     * The statistics of the requests made by a {@link Connection} for a single URL.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class FlightStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder collapsed = new LongAdder();
+
+        /**
+         * Returns the amount of calls requesting the URL.
+         *
+         * @return the amount of calls requesting the URL
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * Returns the amount of calls which waited for a request, or a parse, made by another call instead of making their own.
+         *
+         * @return the amount of calls collapsed into another call
+         */
+        public long getCollapsed() {
+            return collapsed.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "FlightStats{calls=" + getCalls() + ", collapsed=" + getCollapsed() + "}";
+        }
+    }
 }
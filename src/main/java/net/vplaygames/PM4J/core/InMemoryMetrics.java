@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import net.vplaygames.PM4J.caches.Cache;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A simple implementation of {@link Metrics} which keeps all the recorded values in memory.
+ * Latencies are recorded in {@link Histogram Histograms}, everything else in counters.
+ * All the methods are thread-safe and lock-free.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see Metrics
+ */
+public class InMemoryMetrics implements Metrics {
+    private final Histogram requests = new Histogram();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Histogram> parseTimes = new ConcurrentHashMap<>();
+    private final Map<Cache.Type, LongAdder> hits = new EnumMap<>(Cache.Type.class);
+    private final Map<Cache.Type, LongAdder> misses = new EnumMap<>(Cache.Type.class);
+    private final Map<Cache.Type, Integer> sizes = new ConcurrentHashMap<>();
+    private final Map<Cache.Type, Histogram> refreshes = new EnumMap<>(Cache.Type.class);
+
+    public InMemoryMetrics() {
+        // the maps are filled beforehand so that they are only read afterwards
+        for (Cache.Type type : Cache.Type.values()) {
+            hits.put(type, new LongAdder());
+            misses.put(type, new LongAdder());
+            refreshes.put(type, new Histogram());
+        }
+    }
+
+    @Override
+    public void requestCompleted(String url, int code, long nanos, long bytes) {
+        requests.record(nanos);
+        bytesReceived.add(bytes);
+        statusCodes.computeIfAbsent(code, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void requestFailed(String url, long nanos, Throwable cause) {
+        requests.record(nanos);
+        failedRequests.increment();
+    }
+
+    @Override
+    public void entityParsed(Class<?> type, long nanos) {
+        parseTimes.computeIfAbsent(type, k -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void cacheLookup(Cache.Type type, boolean hit) {
+        (hit ? hits : misses).get(type).increment();
+    }
+
+    @Override
+    public void cacheResized(Cache.Type type, int size) {
+        sizes.put(type, size);
+    }
+
+    @Override
+    public void refreshCompleted(Cache.Type type, long nanos) {
+        refreshes.get(type).record(nanos);
+    }
+
+    /**
+     * Returns the latencies of all the HTTP requests made, including the failed ones.
+     *
+     * @return the latencies of all the HTTP requests made
+     */
+    public Histogram getRequestLatencies() {
+        return requests;
+    }
+
+    /**
+     * Returns the total amount of bytes received in the bodies of all the responses.
+     *
+     * @return the total amount of bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Returns the amount of HTTP requests which could not be completed.
+     *
+     * @return the amount of HTTP requests which could not be completed
+     */
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    /**
+     * Returns the amount of responses received for each HTTP Code.
+     *
+     * @return an unmodifiable, sorted Map of HTTP Codes to the amount of responses received with them
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        Map<Integer, Long> tor = new TreeMap<>();
+        statusCodes.forEach((code, count) -> tor.put(code, count.sum()));
+        return Collections.unmodifiableMap(tor);
+    }
+
+    /**
+     * Returns the parsing times of the given type of entity.
+     *
+     * @param type the class of the entity
+     * @return the parsing times of the given type of entity, an empty Histogram if none were recorded
+     */
+    public Histogram getParseTimes(Class<?> type) {
+        return parseTimes.getOrDefault(type, new Histogram());
+    }
+
+    /**
+     * Returns the amount of successful lookups in the given type of cache.
+     *
+     * @param type the type of the cache
+     * @return the amount of successful lookups
+     */
+    public long getHits(Cache.Type type) {
+        return hits.get(type).sum();
+    }
+
+    /**
+     * Returns the amount of unsuccessful lookups in the given type of cache.
+     *
+     * @param type the type of the cache
+     * @return the amount of unsuccessful lookups
+     */
+    public long getMisses(Cache.Type type) {
+        return misses.get(type).sum();
+    }
+
+    /**
+     * Returns the last reported size of the given type of cache.
+     *
+     * @param type the type of the cache
+     * @return the last reported size, 0 if none was reported
+     */
+    public int getSize(Cache.Type type) {
+        return sizes.getOrDefault(type, 0);
+    }
+
+    /**
+     * Returns the durations of the refreshes of the given type of cache.
+     *
+     * @param type the type of the cache
+     * @return the durations of the refreshes
+     */
+    public Histogram getRefreshDurations(Cache.Type type) {
+        return refreshes.get(type);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tor = new StringBuilder()
+            .append("requests: ").append(requests)
+            .append(", failed: ").append(getFailedRequests())
+            .append(", bytes: ").append(getBytesReceived())
+            .append(", codes: ").append(getStatusCodes());
+        parseTimes.forEach((type, h) -> tor.append("\nparse ").append(type.getSimpleName()).append(": ").append(h));
+        for (Cache.Type type : Cache.Type.values()) {
+            tor.append("\ncache ").append(type.name())
+                .append(": hits=").append(getHits(type))
+                .append(", misses=").append(getMisses(type))
+                .append(", size=").append(getSize(type));
+            if (refreshes.get(type).getCount() != 0)
+                tor.append(", refreshes: ").append(refreshes.get(type));
+        }
+        return tor.toString();
+    }
+
+    /**
+     * A latency histogram with exponential buckets, where the bucket {@code i}
+     * contains the values from {@code 2^i} (inclusive) to {@code 2^(i+1)} (exclusive) microseconds.
+     * Percentiles are therefore accurate to a factor of 2, which is enough to find where time goes
+     * while keeping the recording lock-free and allocation-free.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 40;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records a value.
+         *
+         * @param nanos the value to record, in nanoseconds
+         */
+        public void record(long nanos) {
+            long micros = Math.max(nanos / 1000, 1);
+            buckets.incrementAndGet(Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1));
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        /**
+         * Returns the amount of values recorded.
+         *
+         * @return the amount of values recorded
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the sum of all the values recorded, in nanoseconds.
+         *
+         * @return the sum of all the values recorded
+         */
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * Returns the maximum value recorded, in nanoseconds.
+         *
+         * @return the maximum value recorded
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Returns the mean of the values recorded, in nanoseconds.
+         *
+         * @return the mean of the values recorded, 0 if none were recorded
+         */
+        public double getMean() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) getTotal() / count;
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile, in nanoseconds.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the upper bound of the bucket containing the given percentile, 0 if no values were recorded
+         */
+        public long getPercentile(double percentile) {
+            long target = (long) Math.ceil(getCount() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen != 0)
+                    return Math.min((2L << i) * 1000, getMax());
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() +
+                ", mean=" + Util.toString(6, getMean() / 1e6) + "ms" +
+                ", p50=" + Util.toString(6, getPercentile(50) / 1e6) + "ms" +
+                ", p99=" + Util.toString(6, getPercentile(99) / 1e6) + "ms" +
+                ", max=" + Util.toString(6, getMax() / 1e6) + "ms";
+        }
+    }
+}
@@ -15,6 +15,16 @@
  */
 package net.vplaygames.PM4J.core;
 
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
 /**
  * The Logger used in {@link Connection} and the {@link net.vplaygames.PM4J.caches.TrainerDataCache}.
  * This logger's syntax imitates SL4J's Logger's Syntax and is inspired by it.
@@ -26,10 +36,22 @@ package net.vplaygames.PM4J.core;
  *     13:25:43.527 [PM4J-Cache] INFO net.vplaygames.PM4J.core.Connection - Downloaded data for all the trainers.
  * </code></pre>
  *
+ * Messages below the {@link #setLevel(Mode) level} of all the Loggers are discarded before they are built,
+ * and messages given as a {@link Supplier} are not even computed in that case, for example:-
+ * <pre><code>
+ *     Logger.setLevel(Logger.Mode.INFO);
+ *     logger.log(() -&gt; "Downloaded " + name + "'s Data", Logger.Mode.DEBUG); // costs nothing
+ * </code></pre>
+ * The messages are written on separate lines by the {@link Appender} set using {@link #setAppender(Appender)},
+ * which writes to {@link System#out} by default.
+ * An {@link AsyncAppender} can be used so that logging never blocks the thread which is logging.
+ *
  * @author Vaibhav Nargwani
  * @since 1.0.0
  */
 public class Logger {
+    private static volatile Mode level = Mode.DEBUG;
+    private static volatile Appender appender = Appender.CONSOLE;
     private final Class<?> clazz;
 
     public Logger(Class<?> clazz) {
@@ -38,14 +60,64 @@ public class Logger {
     }
 
     /**
-     * Prepares the Logging Syntax and prints it
+     * Sets the minimum level of the messages that are printed by all the Loggers.
+     * All the messages are printed by default.
+     *
+     * @param level the minimum level of the messages to print
+     */
+    public static void setLevel(Mode level) {
+        Logger.level = level == null ? Mode.DEBUG : level;
+    }
+
+    /**
+     * Returns the minimum level of the messages that are printed by all the Loggers.
+     *
+     * @return the minimum level of the messages that are printed
+     */
+    public static Mode getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the {@link Appender} to which all the Loggers write the messages.
+     *
+     * @param appender the {@link Appender} to use, {@code null} to use {@link Appender#CONSOLE}
+     */
+    public static void setAppender(Appender appender) {
+        Logger.appender = appender == null ? Appender.CONSOLE : appender;
+    }
+
+    /**
+     * Returns true if the messages of the given level are printed.
+     *
+     * @param mode the Logger mode or Level
+     * @return true if the messages of the given level are printed
+     */
+    public static boolean isEnabled(Mode mode) {
+        return mode.severity >= level.severity;
+    }
+
+    /**
+     * Prepares the Logging Syntax and prints it, if the given level is enabled
      *
      * @param s     the message to print
      * @param mode  the Logger mode or Level
-     * @return the Logging message printed
+     * @return the Logging message printed, {@code null} if the given level is not enabled
      */
     public String log(String s, Mode mode) {
-        return log(s, mode, true);
+        return isEnabled(mode) ? log(s, mode, true) : null;
+    }
+
+    /**
+     * Prepares the Logging Syntax and prints it, if the given level is enabled.
+     * The message is only computed if it is going to be printed.
+     *
+     * @param s     supplies the message to print
+     * @param mode  the Logger mode or Level
+     * @return the Logging message printed, {@code null} if the given level is not enabled
+     */
+    public String log(Supplier<String> s, Mode mode) {
+        return isEnabled(mode) ? log(s.get(), mode, true) : null;
     }
 
     /**
@@ -59,7 +131,7 @@ public class Logger {
     public String log(String s, Mode mode, boolean print) {
         String top = java.time.LocalTime.now()
             + " [" + Thread.currentThread().getName() + "] " + mode + " " + clazz.getName() + " - " + s;
-        if (print) System.out.print(top);
+        if (print) appender.append(top);
         return top;
     }
 
@@ -70,6 +142,121 @@ public class Logger {
      * @since 1.0.0
      */
     public enum Mode {
-        INFO, DEBUG, WARN, ERROR
+        INFO(1), DEBUG(0), WARN(2), ERROR(3);
+
+        private final int severity;
+
+        Mode(int severity) {
+            this.severity = severity;
+        }
+    }
+
+    /**
+     * Represents a destination of the messages logged.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    public interface Appender {
+        /** Writes each message on a separate line of {@link System#out}, synchronously. */
+        Appender CONSOLE = System.out::println;
+
+        /**
+         * Writes the given message.
+         *
+         * @param message the message to write
+         */
+        void append(String message);
+    }
+
+    /**
+     * An {@link Appender} which queues the messages in a bounded queue
+     * and writes them in batches from a separate daemon Thread.
+     * If the queue is full, the message is dropped instead of blocking the thread which is logging,
+     * the amount of dropped messages is available from {@link #getDropped()}.
+     * For example:-
+     * <pre><code>
+     *     AsyncAppender appender = new AsyncAppender(System.out, 1024);
+     *     Logger.setAppender(appender);
+     *     // rest of the code
+     *     appender.close(); // writes the remaining messages
+     * </code></pre>
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class AsyncAppender implements Appender, Closeable {
+        private static final int MAX_BATCH = 256;
+        private final BlockingQueue<String> queue;
+        private final PrintStream out;
+        private final Thread writer;
+        private final LongAdder dropped = new LongAdder();
+        private volatile boolean closed;
+
+        /**
+         * Constructs a new AsyncAppender and starts its writer Thread.
+         *
+         * @param out      the stream to write the messages to
+         * @param capacity the maximum amount of messages waiting to be written
+         */
+        public AsyncAppender(PrintStream out, int capacity) {
+            this.out = out;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.writer = new Thread(this::run, "PM4J-Logger");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        @Override
+        public void append(String message) {
+            if (closed || !queue.offer(message))
+                dropped.increment();
+        }
+
+        /**
+         * Returns the amount of messages dropped because the queue was full or this appender was closed.
+         *
+         * @return the amount of messages dropped
+         */
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        private void run() {
+            List<String> batch = new ArrayList<>(MAX_BATCH);
+            StringBuilder sb = new StringBuilder();
+            String separator = System.lineSeparator();
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    String first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    // close() interrupts to stop waiting, the remaining messages are still written
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                for (String message : batch)
+                    sb.append(message).append(separator);
+                out.print(sb);
+                out.flush();
+                batch.clear();
+                sb.setLength(0);
+            }
+        }
+
+        /**
+         * Stops accepting messages and waits for the queued ones to be written.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            writer.interrupt();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import net.vplaygames.PM4J.caches.Cache;
+
+/**
+ * The hook through which PM4J reports what it is doing, so that it can be bridged to any monitoring system
+ * without PM4J depending on a metrics library.
+ * All the methods have a no-op default, so an implementation only needs to override the events it is interested in.
+ * <br>The active instance is global and can be swapped using {@link #setInstance(Metrics)}, for example:-
+ * <pre><code>
+ *     InMemoryMetrics metrics = new InMemoryMetrics();
+ *     Metrics.setInstance(metrics);
+ *     // load the data
+ *     System.out.println(metrics);
+ * </code></pre>
+ * Implementations are called from the thread doing the work, so they must be thread-safe and should be cheap.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see InMemoryMetrics
+ */
+public interface Metrics {
+    /** The default instance, which ignores every event. */
+    Metrics NONE = new Metrics() {};
+
+    /**
+     * Returns the active instance, {@link #NONE} if none has been set.
+     *
+     * @return the active instance
+     */
+    static Metrics getInstance() {
+        return MetricsHolder.instance;
+    }
+
+    /**
+     * Sets the active instance.
+     *
+     * @param metrics the instance to report to, {@code null} to stop reporting.
+     */
+    static void setInstance(Metrics metrics) {
+        MetricsHolder.instance = metrics == null ? NONE : metrics;
+    }
+
+    /**
+     * Returns true if an instance other than {@link #NONE} is active.
+     * Callers use this to skip taking timestamps when nobody is listening.
+     *
+     * @return true if an instance other than {@link #NONE} is active
+     */
+    static boolean isEnabled() {
+        return MetricsHolder.instance != NONE;
+    }
+
+    /**
+     * Called when an HTTP request has been completed.
+     *
+     * @param url   the URL which was requested
+     * @param code  the HTTP Code returned
+     * @param nanos the time taken to receive the complete response, in nanoseconds
+     * @param bytes the amount of bytes received in the body of the response
+     */
+    default void requestCompleted(String url, int code, long nanos, long bytes) {}
+
+    /**
+     * Called when an HTTP request could not be completed due to cancellation, a connectivity problem or timeout.
+     *
+     * @param url   the URL which was requested
+     * @param nanos the time taken before the failure, in nanoseconds
+     * @param cause the cause of the failure
+     */
+    default void requestFailed(String url, long nanos, Throwable cause) {}
+
+    /**
+     * Called when an entity has been parsed from its JSON form.
+     * The time of parsing an entity includes the time of parsing the entities it contains.
+     *
+     * @param type  the class of the entity parsed
+     * @param nanos the time taken to parse it, in nanoseconds
+     */
+    default void entityParsed(Class<?> type, long nanos) {}
+
+    /**
+     * Called when a key is looked up in one of the caches.
+     *
+     * @param type the type of the cache
+     * @param hit  true if the key was present in the cache
+     */
+    default void cacheLookup(Cache.Type type, boolean hit) {}
+
+    /**
+     * Called when the size of one of the caches has changed.
+     *
+     * @param type the type of the cache
+     * @param size the new size of the cache
+     */
+    default void cacheResized(Cache.Type type, int size) {}
+
+    /**
+     * Called when the data of a cache has been refreshed.
+     *
+     * @param type  the type of the cache refreshed
+     * @param nanos the time taken to refresh it, in nanoseconds
+     */
+    default void refreshCompleted(Cache.Type type, long nanos) {}
+}
+
+// holds the active instance, as interfaces can not have mutable fields
+class MetricsHolder {
+    static volatile Metrics instance = Metrics.NONE;
+
+    private MetricsHolder() {}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
+
+/**
+ * An embedded HTTP server which serves a loaded dataset on the same routes as the
+ * <a href="https://www.pokemasdb.com/trainer/">Trainer Endpoint</a>, so that many {@link Connection Connections}
+ * can be pointed at a single local mirror instead of each hitting PokemasDB.
+ * <br>The body of every route is encoded once, when the dataset is {@link #load(Collection) loaded},
+ * along with its gzip compressed form and an ETag for each of the two, so a request only copies bytes.
+ * Requests with a matching {@code If-None-Match} header are answered with {@code 304 Not Modified}.
+ * For example:-
+ * <pre><code>
+ *     try (MirrorServer server = new MirrorServer(8080)) {
+ *         server.load(new Connection().requestAllTrainers(false));
+ *         server.start();
+ *         // on the shards
+ *         Connection conn = new Connection(new OkHttpClient(), server.getBaseURL());
+ *     }
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class MirrorServer implements Closeable {
+    private static final String PATH = "/trainer/";
+    static Logger logger = new Logger(MirrorServer.class);
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile Dataset current = new Dataset(new Body("{\"trainers\":[]}"), Collections.emptyMap());
+
+    /**
+     * Constructs a new MirrorServer listening on all the interfaces at the given port, with 4 threads.
+     *
+     * @param port the port to listen on, 0 to pick a free port
+     * @throws IOException if the server could not be bound to the port
+     */
+    public MirrorServer(int port) throws IOException {
+        this(new InetSocketAddress(port), 4);
+    }
+
+    /**
+     * Constructs a new MirrorServer.
+     *
+     * @param address the address to listen on
+     * @param threads the amount of threads handling the requests
+     * @throws IOException if the server could not be bound to the address
+     */
+    public MirrorServer(InetSocketAddress address, int threads) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread tor = new Thread(r, "PM4J-Mirror-" + count.incrementAndGet());
+            tor.setDaemon(true);
+            return tor;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Loads the Trainers in the {@link TrainerDataCache}.
+     *
+     * @return this instance, useful for chaining.
+     */
+    public MirrorServer loadFromCache() {
+        return load(TrainerDataCache.getInstance().values());
+    }
+
+    /**
+     * Encodes and serves the given Trainers, replacing the ones served before.
+     * The requests being answered while loading are answered with the previous dataset.
+     *
+     * @param dataset the Trainers to be served, along with their Pokemon
+     * @return this instance, useful for chaining.
+     */
+    public MirrorServer load(Collection<Trainer> dataset) {
+        Map<String, Body> bodies = new HashMap<>();
+        StringBuilder json = new StringBuilder("{\"trainers\":[");
+        boolean first = true;
+        for (Trainer t : dataset) {
+            bodies.put(t.name, new Body(t.toJSONString()));
+            json.append(first ? "" : ",")
+                .append("{\"name\":").append(Util.quote(t.name))
+                .append(",\"pokemon\":").append(Util.toString(t.pokemon))
+                .append(",\"image\":").append(Util.quote(t.img))
+                .append(",\"data\":").append(Util.quote(t.data))
+                .append(",\"pokemonData\":[]}");
+            first = false;
+        }
+        // published at once, so no request sees the new list along with the old trainers
+        current = new Dataset(new Body(json.append("]}").toString()), bodies);
+        logger.log(() -> "Loaded " + bodies.size() + " trainers into the mirror.", INFO);
+        return this;
+    }
+
+    /**
+     * Starts answering requests.
+     *
+     * @return this instance, useful for chaining.
+     */
+    public MirrorServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Returns the port this server listens on.
+     *
+     * @return the port this server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the URL of the Trainer Endpoint of this server, to be given to
+     * {@link Connection#Connection(okhttp3.OkHttpClient, String)}.
+     *
+     * @return the URL of the Trainer Endpoint of this server
+     */
+    public String getBaseURL() {
+        String host = server.getAddress().getAddress().isAnyLocalAddress() ? "localhost" : server.getAddress().getHostString();
+        return "http://" + host + ":" + getPort() + PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String name = exchange.getRequestURI().getPath().substring(PATH.length());
+            Dataset served = current;
+            Body body = name.isEmpty() ? served.list : served.trainers.get(name);
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Headers request = exchange.getRequestHeaders(), response = exchange.getResponseHeaders();
+            String acceptEncoding = request.getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            // each representation has its own validator, as the response varies by Accept-Encoding
+            String etag = gzip ? body.gzippedEtag : body.etag;
+            byte[] bytes = gzip ? body.gzipped : body.bytes;
+            response.set("ETag", etag);
+            response.set("Content-Type", "application/json; charset=utf-8");
+            response.set("Vary", "Accept-Encoding");
+            if (gzip) response.set("Content-Encoding", "gzip");
+            String ifNoneMatch = request.getFirst("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if (method.equals("HEAD")) {
+                response.set("Content-Length", String.valueOf(bytes.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Stops this server, waiting for at most a second for the requests being answered.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private static class Dataset {
+        final Body list;
+        final Map<String, Body> trainers;
+
+        Dataset(Body list, Map<String, Body> trainers) {
+            this.list = list;
+            this.trainers = trainers;
+        }
+    }
+
+    private static class Body {
+        final byte[] bytes;
+        final byte[] gzipped;
+        final String etag;
+        final String gzippedEtag;
+
+        Body(String json) {
+            bytes = json.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            gzipped = out.toByteArray();
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                StringBuilder tor = new StringBuilder("\"");
+                for (int i = 0; i < 16; i++)
+                    tor.append(Character.forDigit(digest[i] >> 4 & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+                etag = tor.append('"').toString();
+                gzippedEtag = tor.insert(tor.length() - 1, "-gz").toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import net.vplaygames.PM4J.caches.Cache;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.entities.Trainer;
+import net.vplaygames.PM4J.exceptions.TrainerNotFoundException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static net.vplaygames.PM4J.core.Logger.Mode.DEBUG;
+import static net.vplaygames.PM4J.core.Logger.Mode.WARN;
+
+/**
+ * Gets Trainers from the {@link TrainerDataCache}, downloading and parsing them using a {@link Connection}
+ * when they are not cached, and downloading them again in the background before they get too old.
+ * <br>A Trainer older than the refresh-ahead point of its time to live is returned from the cache as is,
+ * while a newer copy is downloaded in the background, so the Trainers which are used often never wait for the network.
+ * A Trainer older than its time to live is downloaded again before being returned.
+ * Only one download of a Trainer happens at a time, however many threads ask for it.
+ * For example:-
+ * <pre><code>
+ *     try (TrainerLoader loader = new TrainerLoader(new Connection(), Duration.ofHours(6))) {
+ *         Trainer red = loader.get("Red");
+ *     }
+ * </code></pre>
+ * The loader parses the Trainers while holding the lock of the {@link TrainerDataCache} instance, see there.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class TrainerLoader implements Closeable {
+    static Logger logger = new Logger(TrainerLoader.class);
+    private final Connection connection;
+    private final long ttl;
+    private final long refreshAfter;
+    private final ExecutorService executor;
+    private final LongSupplier ticker;
+    private final Map<String, Long> loadedAt = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Trainer>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new TrainerLoader which refreshes the Trainers after 80% of their time to live.
+     *
+     * @param connection the Connection used to download the Trainers
+     * @param ttl        the time after which a Trainer must be downloaded again
+     */
+    public TrainerLoader(Connection connection, Duration ttl) {
+        this(connection, ttl, 0.8, 2, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new TrainerLoader.
+     *
+     * @param connection   the Connection used to download the Trainers
+     * @param ttl          the time after which a Trainer must be downloaded again
+     * @param refreshAhead the fraction of the time to live after which a Trainer is downloaded again in the background,
+     *                     from 0 to 1, 1 to never refresh in the background
+     * @param threads      the amount of threads downloading in the background
+     * @param ticker       the source of the time, in nanoseconds
+     */
+    public TrainerLoader(Connection connection, Duration ttl, double refreshAhead, int threads, LongSupplier ticker) {
+        this.connection = connection;
+        this.ttl = ttl.toNanos();
+        this.refreshAfter = (long) (this.ttl * Math.max(0, Math.min(1, refreshAhead)));
+        this.ticker = ticker;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread tor = new Thread(r, "PM4J-Refresh-" + count.incrementAndGet());
+            tor.setDaemon(true);
+            return tor;
+        });
+    }
+
+    private static String key(String name) {
+        return Util.reduceToAlphanumeric(name).toLowerCase();
+    }
+
+    /**
+     * Returns the Trainer with the given name, downloading it if it is not cached or too old.
+     *
+     * @param name the name of the Trainer
+     * @return the Trainer with the given name
+     * @throws IOException              if the Trainer had to be downloaded and the request failed
+     * @throws TrainerNotFoundException if the Trainer does not exist
+     */
+    public Trainer get(String name) throws IOException {
+        CompletableFuture<Trainer> future = getAsync(name);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the Trainer with the given name, which is completed at once if the Trainer is cached and not too old,
+     * and otherwise when it has been downloaded.
+     *
+     * @param name the name of the Trainer
+     * @return the Trainer with the given name
+     */
+    public CompletableFuture<Trainer> getAsync(String name) {
+        String key = key(name);
+        Trainer cached;
+        synchronized (TrainerDataCache.getInstance()) {
+            cached = TrainerDataCache.getInstance().get(name);
+        }
+        long now = ticker.getAsLong();
+        if (cached != null) {
+            long age = now - loadedAt.computeIfAbsent(key, k -> now);
+            if (age < refreshAfter)
+                return CompletableFuture.completedFuture(cached);
+            if (age < ttl) {
+                load(name, key);
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return load(name, key);
+    }
+
+    /**
+     * Downloads the Trainer with the given name again, unless it is already being downloaded.
+     *
+     * @param name the name of the Trainer
+     * @return the downloaded Trainer
+     */
+    public CompletableFuture<Trainer> refresh(String name) {
+        return load(name, key(name));
+    }
+
+    private CompletableFuture<Trainer> load(String name, String key) {
+        CompletableFuture<Trainer> tor = loading.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> download(name, key), executor));
+        // attached outside computeIfAbsent, as a download which has already completed runs this at once,
+        // and the map must not be modified from within its own mapping function
+        tor.whenComplete((t, e) -> loading.remove(key, tor));
+        return tor;
+    }
+
+    private Trainer download(String name, String key) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        try {
+            Trainer tor = connection.requestParsedTrainer(name);
+            loadedAt.put(key, ticker.getAsLong());
+            if (timed) Metrics.getInstance().refreshCompleted(Cache.Type.TRAINER, System.nanoTime() - start);
+            logger.log(() -> "Loaded " + name + "'s Data", DEBUG);
+            return tor;
+        } catch (IOException e) {
+            logger.log(() -> "Could not load " + name + "'s Data: " + e, WARN);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forgets when the given Trainer was downloaded, so it is downloaded again when next asked for.
+     *
+     * @param name the name of the Trainer
+     */
+    public void invalidate(String name) {
+        loadedAt.put(key(name), ticker.getAsLong() - ttl);
+    }
+
+    /**
+     * Stops the background downloads. The Trainers already cached stay in the {@link TrainerDataCache}.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import net.vplaygames.PM4J.caches.Cache;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.entities.Trainer;
+import net.vplaygames.PM4J.exceptions.ConnectionClosedException;
+import net.vplaygames.PM4J.exceptions.TrainerNotFoundException;
+import net.vplaygames.vjson.JSONValue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Downloads and parses the data of all the trainers in three stages connected by bounded queues:-
+ * <ol>
+ *     <li><b>fetch</b> - downloads the data of the trainers using a fixed amount of threads.</li>
+ *     <li><b>parse</b> - parses the downloaded data into JSON on a {@link ForkJoinPool}.</li>
+ *     <li><b>index</b> - creates the Trainers from the parsed JSON, which registers them and their Pokemon,
+ *         moves and skills in the caches. As the caches are not thread-safe, this stage runs on the calling thread
+ *         and processes the parsed trainers in batches.</li>
+ * </ol>
+ * When a queue is full, the stage before it waits, so at most {@code queueCapacity} trainers are held between two stages.
+ * The statistics of each {@link Stage} show where the time goes, for example a full fetch queue with busy parsers
+ * means that the loading is bound by CPU, while an empty one means that it is bound by the network.
+ * For example:-
+ * <pre><code>
+ *     try (Connection conn = new Connection()) {
+ *         TrainerPipeline pipeline = new TrainerPipeline(conn);
+ *         List&lt;Trainer&gt; trainers = pipeline.run();
+ *         pipeline.getStages().forEach(System.out::println);
+ *     } catch (Exception e) {
+ *         e.printStackTrace();
+ *     }
+ * </code></pre>
+ * A pipeline can be run multiple times, but not concurrently.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see Connection#requestAllTrainers(boolean)
+ */
+public class TrainerPipeline {
+    private final Connection connection;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Stage fetch;
+    private final Stage parse;
+    private final Stage index;
+
+    /**
+     * Constructs a new TrainerPipeline which uses 4 threads to download,
+     * one thread per available processor to parse, and queues of 64 trainers.
+     *
+     * @param connection the Connection used to download the data
+     */
+    public TrainerPipeline(Connection connection) {
+        this(connection, 4, Runtime.getRuntime().availableProcessors(), 64, 16);
+    }
+
+    /**
+     * Constructs a new TrainerPipeline.
+     *
+     * @param connection        the Connection used to download the data
+     * @param fetchParallelism  the amount of trainers downloaded at the same time
+     * @param parseParallelism  the amount of trainers parsed at the same time
+     * @param queueCapacity     the maximum amount of trainers waiting between two stages
+     * @param batchSize         the maximum amount of trainers indexed in one batch
+     * @throws IllegalArgumentException if any of the given numbers is less than 1
+     */
+    public TrainerPipeline(Connection connection, int fetchParallelism, int parseParallelism, int queueCapacity, int batchSize) {
+        if (fetchParallelism < 1 || parseParallelism < 1 || queueCapacity < 1 || batchSize < 1)
+            throw new IllegalArgumentException("The parallelism, queue capacity and batch size must be positive!");
+        this.connection = connection;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.fetch = new Stage("fetch", fetchParallelism);
+        this.parse = new Stage("parse", parseParallelism);
+        this.index = new Stage("index", 1);
+    }
+
+    /**
+     * Downloads, parses and indexes the data of all the trainers.
+     *
+     * @return the data of all the trainers, in the order they were indexed.
+     * @throws IOException               if the list of trainers could not be requested,
+     *                                   or this thread was interrupted while waiting for the other stages.
+     * @throws TrainerNotFoundException  if the data of any trainer could not be downloaded or parsed.
+     * @throws ConnectionClosedException if the Connection has been closed.
+     */
+    public List<Trainer> run() throws IOException {
+        List<Trainer> tor = new ArrayList<>();
+        run(tor::add);
+        return tor;
+    }
+
+    /**
+     * Downloads, parses and indexes the data of all the trainers,
+     * giving each trainer to the {@code sink} on the calling thread as soon as it has been indexed.
+     *
+     * @param sink receives each trainer after it has been indexed
+     * @throws IOException               if the list of trainers could not be requested,
+     *                                   or this thread was interrupted while waiting for the other stages.
+     * @throws TrainerNotFoundException  if the data of any trainer could not be downloaded or parsed.
+     * @throws ConnectionClosedException if the Connection has been closed.
+     */
+    public void run(Consumer<? super Trainer> sink) throws IOException {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        List<String> names = connection.requestTrainerNames();
+        int total = names.size();
+        BlockingQueue<Item> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        fetch.reset(fetched);
+        parse.reset(parsed);
+        index.reset(null);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService fetchers = Executors.newFixedThreadPool(fetch.parallelism, r -> {
+            Thread t = new Thread(r, "PM4J-Fetch-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ForkJoinPool parsers = new ForkJoinPool(parse.parallelism);
+        try {
+            for (String name : names)
+                fetchers.execute(() -> fetch(name, fetched));
+            AtomicInteger claimed = new AtomicInteger();
+            for (int i = 0; i < parse.parallelism; i++)
+                parsers.execute(() -> parse(claimed, total, fetched, parsed));
+            index(total, parsed, sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the trainers");
+        } finally {
+            fetchers.shutdownNow();
+            parsers.shutdownNow();
+            getStages().forEach(Stage::finish);
+        }
+        if (timed) Metrics.getInstance().refreshCompleted(Cache.Type.TRAINER, System.nanoTime() - start);
+    }
+
+    private void fetch(String name, BlockingQueue<Item> output) {
+        long start = System.nanoTime();
+        Item item = new Item(name);
+        try {
+            item.json = connection.requestTrainer(name);
+        } catch (IOException | RuntimeException e) {
+            item.error = e;
+        }
+        fetch.record(System.nanoTime() - start, 1);
+        try {
+            output.put(item);
+        } catch (InterruptedException e) {
+            // the pipeline has been stopped
+        }
+    }
+
+    private void parse(AtomicInteger claimed, int total, BlockingQueue<Item> input, BlockingQueue<Item> output) {
+        try {
+            while (claimed.getAndIncrement() < total) {
+                Item item = input.take();
+                if (item.error == null) {
+                    long start = System.nanoTime();
+                    try {
+                        item.tree = JSONValue.parse(item.json);
+                    } catch (RuntimeException e) {
+                        item.error = e;
+                    }
+                    item.json = null;
+                    parse.record(System.nanoTime() - start, 1);
+                }
+                output.put(item);
+            }
+        } catch (InterruptedException e) {
+            // the pipeline has been stopped
+        }
+    }
+
+    private void index(int total, BlockingQueue<Item> input, Consumer<? super Trainer> sink) throws InterruptedException {
+        List<Item> batch = new ArrayList<>(batchSize);
+        for (int done = 0; done < total; done += batch.size()) {
+            batch.clear();
+            batch.add(input.take());
+            input.drainTo(batch, batchSize - 1);
+            long start = System.nanoTime();
+            for (Item item : batch) {
+                if (item.error instanceof TrainerNotFoundException)
+                    throw (TrainerNotFoundException) item.error;
+                if (item.error != null)
+                    throw new TrainerNotFoundException(item.name, item.error);
+                Trainer trainer;
+                try {
+                    synchronized (TrainerDataCache.getInstance()) {
+                        trainer = Trainer.parse(item.tree);
+                    }
+                } catch (RuntimeException e) {
+                    throw new TrainerNotFoundException(item.name, e);
+                }
+                sink.accept(trainer);
+            }
+            index.record(System.nanoTime() - start, batch.size());
+        }
+    }
+
+    /**
+     * Returns the stage which downloads the data.
+     *
+     * @return the stage which downloads the data
+     */
+    public Stage getFetchStage() {
+        return fetch;
+    }
+
+    /**
+     * Returns the stage which parses the downloaded data into JSON.
+     *
+     * @return the stage which parses the downloaded data
+     */
+    public Stage getParseStage() {
+        return parse;
+    }
+
+    /**
+     * Returns the stage which creates the Trainers and registers them in the caches.
+     *
+     * @return the stage which indexes the trainers
+     */
+    public Stage getIndexStage() {
+        return index;
+    }
+
+    /**
+     * Returns all the stages, in the order the data passes through them.
+     *
+     * @return all the stages
+     */
+    public List<Stage> getStages() {
+        return Arrays.asList(fetch, parse, index);
+    }
+
+    // a trainer passing through the stages
+    private static class Item {
+        final String name;
+        String json;
+        JSONValue tree;
+        Throwable error;
+
+        Item(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The statistics of a stage of a {@link TrainerPipeline}, which are reset each time the pipeline is run.
+     * All the values can be read while the pipeline is running.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Stage {
+        private final String name;
+        private final int parallelism;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private volatile BlockingQueue<?> output;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        Stage(String name, int parallelism) {
+            this.name = name;
+            this.parallelism = parallelism;
+        }
+
+        void reset(BlockingQueue<?> output) {
+            this.output = output;
+            this.startNanos = System.nanoTime();
+            this.endNanos = 0;
+            processed.reset();
+            busyNanos.reset();
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        private long elapsed() {
+            long end = endNanos;
+            return (end == 0 ? System.nanoTime() : end) - startNanos;
+        }
+
+        void record(long nanos, int items) {
+            busyNanos.add(nanos);
+            processed.add(items);
+        }
+
+        /**
+         * Returns the name of this stage.
+         *
+         * @return the name of this stage
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the amount of trainers this stage processes at the same time.
+         *
+         * @return the amount of trainers this stage processes at the same time
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Returns the amount of trainers processed by this stage in the current or last run.
+         *
+         * @return the amount of trainers processed
+         */
+        public long getProcessed() {
+            return processed.sum();
+        }
+
+        /**
+         * Returns the total time spent processing trainers by all the threads of this stage, in nanoseconds.
+         *
+         * @return the total time spent processing trainers
+         */
+        public long getBusyNanos() {
+            return busyNanos.sum();
+        }
+
+        /**
+         * Returns the amount of trainers processed by this stage waiting for the next stage.
+         *
+         * @return the amount of trainers waiting for the next stage, always 0 for the last stage
+         */
+        public int getQueueDepth() {
+            BlockingQueue<?> queue = output;
+            return queue == null ? 0 : queue.size();
+        }
+
+        /**
+         * Returns the amount of trainers processed per second during the current or last run.
+         *
+         * @return the amount of trainers processed per second
+         */
+        public double getThroughput() {
+            long elapsed = elapsed();
+            return elapsed <= 0 ? 0 : getProcessed() * 1e9 / elapsed;
+        }
+
+        /**
+         * Returns the fraction of time the threads of this stage have been busy during the current or last run.
+         * A stage with a utilization close to 1 is the bottleneck of the pipeline.
+         *
+         * @return the fraction of time the threads of this stage have been busy, from 0 to 1
+         */
+        public double getUtilization() {
+            long elapsed = elapsed();
+            return elapsed <= 0 ? 0 : Math.min(1, (double) getBusyNanos() / elapsed / parallelism);
+        }
+
+        @Override
+        public String toString() {
+            return name + ": processed=" + getProcessed() +
+                ", throughput=" + Util.toString(6, getThroughput()) + "/s" +
+                ", utilization=" + Util.toString(4, getUtilization()) +
+                ", queued=" + getQueueDepth();
+        }
+    }
+}
@@ -13,19 +13,45 @@ public class Util {
     private Util() {}
 
     /**
-     * Formats the given {@code String} Array into a String with the given delimiter
+     * Formats the given {@code String} Array into a JSON Array of Strings
      *
      * @param a the String Array to be formatted
-     * @return The resultant String with the values from the Array
-     * @throws NullPointerException if the <code>delimiter</code> was null
+     * @return The resultant JSON Array with the values from the Array, {@code []} if the Array is null or empty
      */
     public static String toString(String[] a) {
-        if (a == null || a.length == 0) return "";
-        StringJoiner b = new StringJoiner("\",\"", "[\"", "\"]");
-        for (String s : a) b.add(s);
+        StringJoiner b = new StringJoiner(",", "[", "]");
+        if (a != null)
+            for (String s : a) b.add(quote(s));
         return b.toString();
     }
 
+    /**
+     * Formats the given {@code String} into a JSON String, escaping the quotes, backslashes and control characters
+     *
+     * @param s the String to be formatted
+     * @return The resultant JSON String, {@code null} if the String is null
+     */
+    public static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder tor = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  tor.append("\\\""); break;
+                case '\\': tor.append("\\\\"); break;
+                case '\n': tor.append("\\n"); break;
+                case '\r': tor.append("\\r"); break;
+                case '\t': tor.append("\\t"); break;
+                case '\b': tor.append("\\b"); break;
+                case '\f': tor.append("\\f"); break;
+                default:
+                    if (c < 0x20) tor.append(String.format("\\u%04x", (int) c));
+                    else tor.append(c);
+            }
+        }
+        return tor.append('"').toString();
+    }
+
     /**
      * Converts a {@code double} to a {@code String} of the given length
      *
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.entities;
+
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.vjson.JSONValue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The List of Pokemon of a lazily parsed {@link Trainer}.
+ * It keeps the unparsed form of each Pokemon and parses it the first time that entry is accessed,
+ * after which the unparsed form is released. When the Trainer is parsed from a {@code String}, the unparsed form
+ * is the slice of the JSON text of that Pokemon, otherwise it is the already parsed {@link JSONValue} of it.
+ * Pokemon added afterwards using {@link #add(Pokemon)} are stored after the lazily parsed ones.
+ * <br>A Pokemon is parsed while holding the lock of the {@link TrainerDataCache} instance, see there.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see Trainer#parse(String, boolean)
+ * @see Trainer#parse(JSONValue, boolean)
+ */
+public class LazyPokemonList extends AbstractList<Pokemon> implements RandomAccess {
+    // each entry is either the String or the JSONValue of the Pokemon, until it is parsed
+    private final Object[] raw;
+    private final AtomicReferenceArray<Pokemon> parsed;
+    private final List<Pokemon> added = new CopyOnWriteArrayList<>();
+
+    LazyPokemonList(List<?> raw) {
+        this.raw = raw.toArray();
+        this.parsed = new AtomicReferenceArray<>(this.raw.length);
+    }
+
+    @Override
+    public Pokemon get(int index) {
+        if (index >= raw.length)
+            return added.get(index - raw.length);
+        Pokemon tor = parsed.get(index);
+        if (tor == null) {
+            synchronized (TrainerDataCache.getInstance()) {
+                tor = parsed.get(index);
+                if (tor == null) {
+                    Object json = raw[index];
+                    tor = json instanceof String ? Pokemon.parse((String) json) : Pokemon.parse((JSONValue) json);
+                    parsed.set(index, tor);
+                    raw[index] = null;
+                }
+            }
+        }
+        return tor;
+    }
+
+    /**
+     * Performs the given action for each Pokemon which has been parsed or added, without parsing the others.
+     *
+     * @param action the action to be performed
+     */
+    public void forEachParsed(Consumer<Pokemon> action) {
+        for (int i = 0; i < parsed.length(); i++) {
+            Pokemon p = parsed.get(i);
+            if (p != null) action.accept(p);
+        }
+        added.forEach(action);
+    }
+
+    /**
+     * Performs the given action for the unparsed form of each Pokemon which has not been parsed yet,
+     * which is either the {@code String} or the {@link JSONValue} of that Pokemon.
+     *
+     * @param action the action to be performed
+     */
+    public void forEachUnparsed(Consumer<Object> action) {
+        for (Object o : raw)
+            if (o != null) action.accept(o);
+    }
+
+    @Override
+    public boolean add(Pokemon pokemon) {
+        modCount++;
+        return added.add(pokemon);
+    }
+
+    @Override
+    public int size() {
+        return raw.length + added.size();
+    }
+
+    /**
+     * Finds the array which is the value of the given key of the top-level object in the given JSON text,
+     * without parsing it.
+     *
+     * @param json the JSON text of an object
+     * @param key  the key whose value is to be found
+     * @return the start and the end (exclusive) of the array in the text, {@code null} if there is no such array
+     */
+    static int[] findArray(String json, String key) {
+        int depth = 0;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = skipString(json, i);
+                int next = skipWhitespace(json, end);
+                if (depth == 1 && next < json.length() && json.charAt(next) == ':' && json.regionMatches(i + 1, key, 0, key.length()) && end - i - 2 == key.length()) {
+                    int start = skipWhitespace(json, next + 1);
+                    return start < json.length() && json.charAt(start) == '[' ? new int[]{start, skipValue(json, start)} : null;
+                }
+                i = end - 1;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits the array in the given range of the given JSON text into the text of each of its elements.
+     *
+     * @param json  the JSON text
+     * @param start the start of the array, its opening bracket
+     * @param end   the end (exclusive) of the array, after its closing bracket
+     * @return the text of each element of the array
+     */
+    static List<String> split(String json, int start, int end) {
+        List<String> tor = new ArrayList<>();
+        for (int i = skipWhitespace(json, start + 1); i < end - 1; ) {
+            int elementEnd = skipValue(json, i);
+            tor.add(json.substring(i, elementEnd));
+            i = skipWhitespace(json, elementEnd);
+            if (i < end - 1 && json.charAt(i) == ',') i = skipWhitespace(json, i + 1);
+        }
+        return tor;
+    }
+
+    // the end (exclusive) of the value starting at the given index
+    private static int skipValue(String json, int start) {
+        char c = json.charAt(start);
+        if (c == '"') return skipString(json, start);
+        if (c != '{' && c != '[') {
+            int i = start;
+            while (i < json.length() && ",]}".indexOf(json.charAt(i)) < 0 && !Character.isWhitespace(json.charAt(i))) i++;
+            return i;
+        }
+        int depth = 0;
+        for (int i = start; i < json.length(); i++) {
+            c = json.charAt(i);
+            if (c == '"') {
+                i = skipString(json, i) - 1;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON value at " + start);
+    }
+
+    // the end (exclusive) of the string whose opening quote is at the given index
+    private static int skipString(String json, int start) {
+        for (int i = start + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '"') return i + 1;
+        }
+        throw new IllegalArgumentException("Unterminated JSON string at " + start);
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        while (start < json.length() && Character.isWhitespace(json.charAt(start))) start++;
+        return start;
+    }
+}
@@ -16,6 +16,8 @@
 package net.vplaygames.PM4J.entities;
 
 import net.vplaygames.PM4J.caches.MoveDataCache;
+import net.vplaygames.PM4J.core.Metrics;
+import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONable;
 import net.vplaygames.vjson.JSONObject;
 import net.vplaygames.vjson.JSONValue;
@@ -32,6 +34,8 @@ import net.vplaygames.vjson.JSONValue;
  * @see SyncMove
  */
 public class Move implements JSONable {
+    /** The ID of this move, shared by all the moves with the same name, see {@link MoveDataCache#byId(int)}. */
+    public final int id;
     /** The name of this move. */
     public final String name;
     /** The type of this move. */
@@ -39,7 +43,7 @@ public class Move implements JSONable {
     /** The Category of this move */
     public final String category;
     /* The maximum power is not included as a field in this object
-       because it is calculable by using Math.round(Math.floor(1.2 * minPower)) */
+       because it is calculable by using getMaxPower() */
     /** The minimum power of this move */
     public final int minPower;
     /** The target(s) of this move */
@@ -69,11 +73,21 @@ public class Move implements JSONable {
         this.cost = cost;
         this.uses = uses;
         this.effect = effect;
-        if (!MoveDataCache.getInstance().containsKey(name)) {
+        this.id = MoveDataCache.getInstance().register(this);
+        if (MoveDataCache.getInstance().getQuietly(name) == null) {
             MoveDataCache.getInstance().put(name, new MoveDataCache.Node(this));
         }
     }
 
+    /**
+     * Returns the maximum power of this move, which is reached at the maximum move level.
+     *
+     * @return the maximum power of this move
+     */
+    public int getMaxPower() {
+        return (int) Math.floor(1.2 * minPower);
+    }
+
     @Override
     public String toString() {
         return toJSONString();
@@ -82,17 +96,17 @@ public class Move implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"name\":\"" + name + "\"," +
-            "\"type\":\"" + type + "\"," +
-            "\"category\":\"" + category + "\"," +
-            "\"target\":\"" + target + "\"," +
+            "\"name\":" + Util.quote(name) + "," +
+            "\"type\":" + Util.quote(type) + "," +
+            "\"category\":" + Util.quote(category) + "," +
+            "\"target\":" + Util.quote(target) + "," +
             "\"power\":{" +
             "\"min_power\":" + minPower + "," +
-            "\"max_power\":" + Math.round(Math.floor(1.2 * minPower)) +
+            "\"max_power\":" + getMaxPower() +
             "},\"accuracy\":" + accuracy + "," +
             "\"cost\":" + cost + "," +
             "\"uses\":" + uses + "," +
-            "\"effect\":\"" + effect + "\"" +
+            "\"effect\":" + Util.quote(effect) +
             "}";
     }
 
@@ -117,6 +131,8 @@ public class Move implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static Move parse(JSONValue val) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String name     = jo.get("name").asString();
         String type     = jo.get("type").asString();
@@ -127,6 +143,8 @@ public class Move implements JSONable {
         int accuracy    = jo.get("accuracy").asInt();
         int cost        = jo.get("cost").asInt();
         int uses        = jo.get("uses").asInt();
-        return new Move(name, type, category, minPower, accuracy, target, cost, uses, effect);
+        Move tor = new Move(name, type, category, minPower, accuracy, target, cost, uses, effect);
+        if (timed) Metrics.getInstance().entityParsed(Move.class, System.nanoTime() - start);
+        return tor;
     }
 }
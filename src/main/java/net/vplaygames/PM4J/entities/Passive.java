@@ -16,6 +16,8 @@
 package net.vplaygames.PM4J.entities;
 
 import net.vplaygames.PM4J.caches.SkillDataCache;
+import net.vplaygames.PM4J.core.Metrics;
+import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONable;
 import net.vplaygames.vjson.JSONObject;
 import net.vplaygames.vjson.JSONValue;
@@ -29,26 +31,55 @@ import net.vplaygames.vjson.JSONValue;
  * @author Vaibhav Nargwani
  */
 public class Passive implements JSONable {
+    /** The ID of this Passive Skill, shared by all the Passive Skills with the same name, -1 if this Passive Skill has no name. */
+    public final int id;
     /** The name of this Passive Skill. */
     public final String name;
     /** The description of this Passive Skill. */
     public final String description;
+    /** The name of the family of this Passive Skill, which is its name without the level, like {@code Attack Up} for {@code Attack Up 3}. */
+    public final String family;
+    /** The level of this Passive Skill, like {@code 3} for {@code Attack Up 3}, 0 if its name has no level. */
+    public final int level;
 
     public Passive(String name, String description) {
         this.name = name;
         this.description = description;
-        if (name.equals("")) return;
-        if (!SkillDataCache.getInstance().containsKey(name)) {
+        String[] tokens = name.trim().split("\\s+");
+        int levelToken = levelToken(tokens);
+        if (levelToken == -1) {
+            this.family = name.trim();
+            this.level = 0;
+        } else {
+            StringBuilder family = new StringBuilder();
+            for (int i = 0; i < tokens.length; i++)
+                if (i != levelToken) family.append(family.length() == 0 ? "" : " ").append(tokens[i]);
+            this.family = family.toString();
+            this.level = Integer.parseInt(tokens[levelToken]);
+        }
+        if (name.equals("")) {
+            this.id = -1;
+            return;
+        }
+        this.id = SkillDataCache.getInstance().register(this);
+        if (SkillDataCache.getInstance().getQuietly(name) == null) {
             SkillDataCache.getInstance().put(name, new SkillDataCache.Node(this));
-            if (Character.isDigit(name.charAt(name.length() - 1))) {
-                String newName = name.substring(0, name.length() - 2);
-                if (!SkillDataCache.getInstance().containsKey(newName)) {
-                    new Passive(newName, "This is a group of " + newName + " 1-9.");
-                }
-            }
         }
     }
 
+    // the index of the last token which is a level, like "3" in "Attack Up 3" or "Attack Up 3 (Sync)", -1 if none
+    private static int levelToken(String[] tokens) {
+        for (int i = tokens.length - 1; i > 0; i--) {
+            String token = tokens[i];
+            if (token.isEmpty() || token.length() > 3) continue;
+            boolean digits = true;
+            for (int c = 0; c < token.length() && digits; c++)
+                digits = Character.isDigit(token.charAt(c));
+            if (digits) return i;
+        }
+        return -1;
+    }
+
     @Override
     public String toString() {
         return toJSONString();
@@ -56,7 +87,7 @@ public class Passive implements JSONable {
 
     @Override
     public String toJSONString() {
-        return "{\"name\":\"" + name + "\",\"description\":\"" + description + "\"}";
+        return "{\"name\":" + Util.quote(name) + ",\"description\":" + Util.quote(description) + "}";
     }
 
     /**
@@ -78,9 +109,13 @@ public class Passive implements JSONable {
      * @throws ClassCastException if the required value was unable to be cast into the desired type
      */
     public static Passive parse(JSONValue val) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String name = jo.get("name").asString();
         String description = jo.get("description").asString();
-        return new Passive(name, description);
+        Passive tor = new Passive(name, description);
+        if (timed) Metrics.getInstance().entityParsed(Passive.class, System.nanoTime() - start);
+        return tor;
     }
 }
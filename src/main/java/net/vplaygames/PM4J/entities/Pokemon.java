@@ -19,6 +19,8 @@ import net.vplaygames.PM4J.caches.MoveDataCache;
 import net.vplaygames.PM4J.caches.PokemonDataCache;
 import net.vplaygames.PM4J.caches.SkillDataCache;
 import net.vplaygames.PM4J.caches.ThemeSkillDataCache;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.core.Metrics;
 import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONable;
 import net.vplaygames.vjson.JSONObject;
@@ -36,6 +38,8 @@ import java.util.List;
  * @author Vaibhav Nargwani
  */
 public class Pokemon implements JSONable {
+    /** The ID of this Pokemon, dense and unique within the {@link PokemonDataCache}, -1 if this Pokemon has no name */
+    public final int id;
     /** The name of this Pokemon */
     public final String name;
     /** The name of the Trainer of this Pokemon */
@@ -68,6 +72,8 @@ public class Pokemon implements JSONable {
     public final StatRange stats;
     /** The Sync Grid of this Pokemon */
     public final List<SyncTile> grid;
+    // the ID of the Trainer when this Pokemon was constructed, -1 if it had not been loaded
+    private final int trainerId;
 
     public Pokemon(String name, String trainer, String syncPair,
                    String[] typing,
@@ -92,20 +98,23 @@ public class Pokemon implements JSONable {
         this.stats = stats;
         this.themeSkills = themeSkills;
         this.grid = grid;
+        this.trainerId = TrainerDataCache.getInstance().idOf(trainer);
+        PokemonDataCache pdc = PokemonDataCache.getInstance();
         if (name.equals("")) {
+            this.id = -1;
             return;
         }
-        PokemonDataCache pdc = PokemonDataCache.getInstance();
-        if (!pdc.containsKey(name)) {
+        this.id = pdc.register(this);
+        if (pdc.getQuietly(name) == null) {
             pdc.put(name, new ArrayList<>());
         }
-        pdc.get(name).add(this);
+        pdc.getQuietly(name).add(this);
         pdc.forEach((k, v) -> {
             if (name.contains(k) && !k.equals("Mewtwo"))
                 v.add(this);
         });
-        moves.forEach(m -> MoveDataCache.getInstance().get(m.name).users.add(this));
-        themeSkills.forEach(t -> ThemeSkillDataCache.getInstance().get(t.name).pokemon.add(this));
+        moves.forEach(m -> MoveDataCache.getInstance().getQuietly(m.name).users.add(this));
+        themeSkills.forEach(t -> ThemeSkillDataCache.getInstance().getQuietly(t.name).pokemon.add(this));
         passives.forEach(p -> registerInCache(this, p.name, false));
         grid.forEach(sgn -> {
             if (sgn.title.equals(sgn.description)) return;
@@ -117,9 +126,53 @@ public class Pokemon implements JSONable {
 
     // for lesser memory consumption, made this a separate static method
     static void registerInCache(Pokemon p, String passiveName, boolean isGrid) {
-        SkillDataCache.getInstance().get(passiveName).add(p, isGrid);
-        if (Character.isDigit(passiveName.charAt(passiveName.length() - 1)))
-            SkillDataCache.getInstance().get(passiveName.substring(0, passiveName.length() - 2)).add(p, isGrid);
+        SkillDataCache.getInstance().getQuietly(passiveName).add(p, isGrid);
+    }
+
+    /**
+     * Returns the {@link Trainer#id ID} of the Trainer of this Pokemon,
+     * which is found when this Pokemon is constructed, or looked up if the Trainer had not been loaded then.
+     *
+     * @return the ID of the Trainer, -1 if the Trainer has not been loaded
+     */
+    public int getTrainerId() {
+        return trainerId != -1 ? trainerId : TrainerDataCache.getInstance().idOf(trainer);
+    }
+
+    /**
+     * Returns the {@link Move#id IDs} of the Moves of this Pokemon.
+     *
+     * @return the IDs of the Moves, in the order of {@link #moves}
+     */
+    public int[] getMoveIds() {
+        return moves.stream().mapToInt(m -> m.id).toArray();
+    }
+
+    /**
+     * Returns the {@link Passive#id IDs} of the Passive Skills of this Pokemon.
+     *
+     * @return the IDs of the Passive Skills, in the order of {@link #passives}
+     */
+    public int[] getPassiveIds() {
+        return passives.stream().mapToInt(p -> p.id).toArray();
+    }
+
+    /**
+     * Returns the {@link ThemeSkill#id IDs} of the Theme Skills of this Pokemon.
+     *
+     * @return the IDs of the Theme Skills, in the order of {@link #themeSkills}
+     */
+    public int[] getThemeSkillIds() {
+        return themeSkills.stream().mapToInt(t -> t.id).toArray();
+    }
+
+    /**
+     * Returns the {@link SyncTile#getId() IDs} of the tiles of the Sync Grid of this Pokemon.
+     *
+     * @return the IDs of the tiles, in the order of {@link #grid}, -1 for the tiles constructed without this Pokemon
+     */
+    public int[] getTileIds() {
+        return grid.stream().mapToInt(SyncTile::getId).toArray();
     }
 
     @Override
@@ -130,15 +183,15 @@ public class Pokemon implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"name\":\"" + name + "\"," +
-            "\"trainer\":\"" + trainer + "\"," +
-            "\"syncPair\":\"" + syncPair + "\"," +
+            "\"name\":" + Util.quote(name) + "," +
+            "\"trainer\":" + Util.quote(trainer) + "," +
+            "\"syncPair\":" + Util.quote(syncPair) + "," +
             "\"typing\":" + Util.toString(typing) + "," +
-            "\"weakness\":\"" + weakness + "\"," +
-            "\"role\":\"" + role + "\"," +
+            "\"weakness\":" + Util.quote(weakness) + "," +
+            "\"role\":" + Util.quote(role) + "," +
             "\"rarity\":" + rarity + "," +
             "\"ex\":" + ex + "," +
-            "\"gender\":\"" + gender + "\"," +
+            "\"gender\":" + Util.quote(gender) + "," +
             "\"otherForms\":" + Util.toString(otherForms) + "," +
             "\"moves\":" + moves + "," +
             "\"syncMove\":" + syncMove + "," +
@@ -170,6 +223,8 @@ public class Pokemon implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static Pokemon parse(JSONValue val) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String name                  = jo.get("name").asString();
         String trainer               = jo.get("trainer").asString();
@@ -185,8 +240,13 @@ public class Pokemon implements JSONable {
         SyncMove syncMove            = SyncMove.parse(jo.get("syncMove"));
         List<Move> moves        = jo.get("moves").asList(Move::parse);
         List<Passive> passives  = jo.get("passives").asList(Passive::parse);
-        List<SyncTile> grid = jo.get("grid").asList(SyncTile::parse);
+        List<JSONValue> tiles        = jo.get("grid").asList(v -> v);
+        List<SyncTile> grid          = new ArrayList<>(tiles.size());
+        for (int i = 0; i < tiles.size(); i++)
+            grid.add(SyncTile.parse(tiles.get(i), syncPair, name, i));
         List<ThemeSkill> themeSkills = jo.get("themeSkills").asList(ThemeSkill::parse);
-        return new Pokemon(name, trainer, syncPair, typing, weakness, role, rarity, gender, otherForms, ex, stats, syncMove, moves, passives, themeSkills, grid);
+        Pokemon tor = new Pokemon(name, trainer, syncPair, typing, weakness, role, rarity, gender, otherForms, ex, stats, syncMove, moves, passives, themeSkills, grid);
+        if (timed) Metrics.getInstance().entityParsed(Pokemon.class, System.nanoTime() - start);
+        return tor;
     }
 }
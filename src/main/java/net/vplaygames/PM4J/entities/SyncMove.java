@@ -15,6 +15,8 @@
  */
 package net.vplaygames.PM4J.entities;
 
+import net.vplaygames.PM4J.core.Metrics;
+import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONable;
 import net.vplaygames.vjson.JSONObject;
 import net.vplaygames.vjson.JSONValue;
@@ -36,7 +38,7 @@ public class SyncMove implements JSONable {
     /** The Category of this move */
     public final String category;
     /* The maximum power is not included as a field in this object
-       because it is calculable by using Math.round(Math.floor(1.2 * minPower)) */
+       because it is calculable by using getMaxPower() */
     /** The minimum power of this move */
     public final int minPower;
     /** The target(s) of this move */
@@ -55,6 +57,15 @@ public class SyncMove implements JSONable {
         this.description = description;
     }
 
+    /**
+     * Returns the maximum power of this move, which is reached at the maximum move level.
+     *
+     * @return the maximum power of this move
+     */
+    public int getMaxPower() {
+        return (int) Math.floor(1.2 * minPower);
+    }
+
     @Override
     public String toString() {
         return toJSONString();
@@ -63,16 +74,16 @@ public class SyncMove implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"name\":\"" + name + "\"," +
-            "\"type\":\"" + type + "\"," +
-            "\"category\":\"" + category + "\"," +
+            "\"name\":" + Util.quote(name) + "," +
+            "\"type\":" + Util.quote(type) + "," +
+            "\"category\":" + Util.quote(category) + "," +
             "\"power\":" +
             "{" +
             "\"min_power\":" + minPower + "," +
-            "\"max_power\":" + Math.round(Math.floor(1.2 * minPower)) +
+            "\"max_power\":" + getMaxPower() +
             "}," +
-            "\"target\":\"" + target + "\"," +
-            "\"description\":\"" + description + "\"" +
+            "\"target\":" + Util.quote(target) + "," +
+            "\"description\":" + Util.quote(description) +
             "}";
     }
 
@@ -97,6 +108,8 @@ public class SyncMove implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static SyncMove parse(JSONValue val) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String name        = jo.get("name").asString();
         String type        = jo.get("type").asString();
@@ -104,6 +117,8 @@ public class SyncMove implements JSONable {
         String target      = jo.get("target").asString();
         String description = jo.get("description").asString();
         int minPower       = jo.get("power").asObject().get("min_power").asInt();
-        return new SyncMove(name, type, category, minPower, target, description);
+        SyncMove tor = new SyncMove(name, type, category, minPower, target, description);
+        if (timed) Metrics.getInstance().entityParsed(SyncMove.class, System.nanoTime() - start);
+        return tor;
     }
 }
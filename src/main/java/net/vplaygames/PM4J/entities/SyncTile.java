@@ -15,6 +15,8 @@
  */
 package net.vplaygames.PM4J.entities;
 
+import net.vplaygames.PM4J.caches.PokemonDataCache;
+import net.vplaygames.PM4J.core.Metrics;
 import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONable;
 import net.vplaygames.vjson.JSONObject;
@@ -55,8 +57,31 @@ public class SyncTile implements JSONable {
     public final int gridPosX;
     /** The Y position in the Sync Grid of this Sync Grid Node */
     public final int gridPosY;
+    private final int id;
 
     public SyncTile(String bonus, String syncOrbCost, String energyCost, String reqSyncLevel, String gridPos) {
+        this(bonus, Util.toInt(syncOrbCost), Util.toInt(energyCost), Util.toInt(reqSyncLevel), position(gridPos, 0), position(gridPos, 1));
+    }
+
+    public SyncTile(String bonus, int syncOrbCost, int energyCost, int reqSyncLevel, int gridPosX, int gridPosY) {
+        this(null, null, -1, bonus, syncOrbCost, energyCost, reqSyncLevel, gridPosX, gridPosY);
+    }
+
+    /**
+     * Constructs a Sync Grid Node of the grid of the given Pokemon, which is assigned an ID by the
+     * {@link PokemonDataCache#registerTile(String, String, int, SyncTile) PokemonDataCache}.
+     *
+     * @param syncPair     the Sync Pair of the Pokemon whose grid contains this node
+     * @param name         the name of the Pokemon whose grid contains this node
+     * @param index        the index of this node in the grid of the Pokemon
+     * @param bonus        the bonus this node activates
+     * @param syncOrbCost  the amount of Sync Orbs this node requires
+     * @param energyCost   the amount of energy this node requires
+     * @param reqSyncLevel the Sync Move Level this node requires
+     * @param gridPosX     the X position of this node
+     * @param gridPosY     the Y position of this node
+     */
+    public SyncTile(String syncPair, String name, int index, String bonus, int syncOrbCost, int energyCost, int reqSyncLevel, int gridPosX, int gridPosY) {
         this.bonus = bonus;
         if (bonus.contains("- ")) {
             String[] tBonus = bonus.split("- ");
@@ -66,23 +91,35 @@ public class SyncTile implements JSONable {
             this.title = bonus;
             this.description = bonus;
         }
-        this.syncOrbCost = Util.toInt(syncOrbCost);
-        this.energyCost = Util.toInt(energyCost);
-        this.reqSyncLevel = Util.toInt(reqSyncLevel);
-        if ("".equals(gridPos)) {
-            this.gridPosX = 0;
-            this.gridPosY = 0;
-        } else {
-            String[] tempGridPos = gridPos.substring(1, gridPos.length() - 1).split(",");
-            this.gridPosX = Util.toInt(tempGridPos[0]);
-            this.gridPosY = Util.toInt(tempGridPos[1]);
-        }
+        this.syncOrbCost = syncOrbCost;
+        this.energyCost = energyCost;
+        this.reqSyncLevel = reqSyncLevel;
+        this.gridPosX = gridPosX;
+        this.gridPosY = gridPosY;
         this.gridPos = "[" + gridPosX + "," + gridPosY + "]";
         if (!title.equals(description)) {
             if (title.contains(":"))
                 new Passive(title.split(":")[1], description);
             new Passive(title.replace(":", ": "), description);
         }
+        this.id = name == null || name.equals("") ? -1 : PokemonDataCache.getInstance().registerTile(syncPair, name, index, this);
+    }
+
+    // parses a coordinate of a position like "[x,y]", 0 if the position is empty
+    private static int position(String gridPos, int index) {
+        if ("".equals(gridPos)) return 0;
+        return Util.toInt(gridPos.substring(1, gridPos.length() - 1).split(",")[index]);
+    }
+
+    /**
+     * Returns the ID of this Sync Grid Node, dense and unique within the {@link PokemonDataCache},
+     * which is assigned when this node is constructed with the Pokemon whose Sync Grid contains it,
+     * like when it is parsed along with that Pokemon.
+     *
+     * @return the ID of this Sync Grid Node, -1 if it was constructed without its Pokemon
+     */
+    public int getId() {
+        return id;
     }
 
     @Override
@@ -93,11 +130,11 @@ public class SyncTile implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"bonus\":\"" + bonus + "\"," +
+            "\"bonus\":" + Util.quote(bonus) + "," +
             "\"syncOrbCost\":\"" + syncOrbCost + "\"," +
             "\"energyCost\":\"" + energyCost + "\"," +
             "\"reqSyncLevel\":\"" + reqSyncLevel + "\"," +
-            "\"gridPos\":\"" + gridPos + "\"" +
+            "\"gridPos\":" + Util.quote(gridPos) +
             "}";
     }
 
@@ -122,12 +159,21 @@ public class SyncTile implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static SyncTile parse(JSONValue val) {
+        return parse(val, null, null, -1);
+    }
+
+    // parses a node of the grid of the given Pokemon, see SyncTile(String, String, int, String, int, int, int, int, int)
+    static SyncTile parse(JSONValue val, String syncPair, String name, int index) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String bonus        = jo.get("bonus").asString();
         String syncOrbCost  = jo.get("syncOrbCost").asString();
         String energyCost   = jo.get("energyCost").asString();
         String reqSyncLevel = jo.get("reqSyncLevel").asString();
         String gridPos      = jo.get("gridPos").asString();
-        return new SyncTile(bonus, syncOrbCost, energyCost, reqSyncLevel, gridPos);
+        SyncTile tor = new SyncTile(syncPair, name, index, bonus, Util.toInt(syncOrbCost), Util.toInt(energyCost), Util.toInt(reqSyncLevel), position(gridPos, 0), position(gridPos, 1));
+        if (timed) Metrics.getInstance().entityParsed(SyncTile.class, System.nanoTime() - start);
+        return tor;
     }
 }
@@ -16,6 +16,8 @@
 package net.vplaygames.PM4J.entities;
 
 import net.vplaygames.PM4J.caches.ThemeSkillDataCache;
+import net.vplaygames.PM4J.core.Metrics;
+import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONObject;
 import net.vplaygames.vjson.JSONValue;
 import net.vplaygames.vjson.JSONable;
@@ -34,6 +36,8 @@ import java.util.List;
  * @author Vaibhav Nargwani
  */
 public class ThemeSkill implements JSONable {
+    /** The ID of this theme skill, shared by all the theme skills with the same name, see {@link ThemeSkillDataCache#byId(int)} */
+    public final int id;
     /** The name of this theme skill */
     public final String name;
     /**
@@ -56,7 +60,8 @@ public class ThemeSkill implements JSONable {
         this.category = category;
         this.condition = condition;
         this.effects = effects;
-        if (!ThemeSkillDataCache.getInstance().containsKey(name)) {
+        this.id = ThemeSkillDataCache.getInstance().register(this);
+        if (ThemeSkillDataCache.getInstance().getQuietly(name) == null) {
             ThemeSkillDataCache.getInstance().put(name, new ThemeSkillDataCache.Node(this));
         }
     }
@@ -69,10 +74,10 @@ public class ThemeSkill implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"name\":\"" + name + "\"," +
-            "\"tag\":\"" + tag + "\"," +
-            "\"category\":\"" + category + "\"," +
-            "\"condition\":\"" + condition + "\"," +
+            "\"name\":" + Util.quote(name) + "," +
+            "\"tag\":" + Util.quote(tag) + "," +
+            "\"category\":" + Util.quote(category) + "," +
+            "\"condition\":" + Util.quote(condition) + "," +
             "\"effects\":" + effects +
             "}";
     }
@@ -98,13 +103,17 @@ public class ThemeSkill implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static ThemeSkill parse(JSONValue val) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo    = val.asObject();
         String name      = jo.get("name").asString();
         String tag       = jo.get("tag").asString();
         String category  = jo.get("category").asString();
         String condition = jo.get("condition").asString();
         List<Effect> effects = jo.get("effects").asList(Effect::parse);
-        return new ThemeSkill(name, tag, category, condition, effects);
+        ThemeSkill tor = new ThemeSkill(name, tag, category, condition, effects);
+        if (timed) Metrics.getInstance().entityParsed(ThemeSkill.class, System.nanoTime() - start);
+        return tor;
     }
 
     /**
@@ -137,7 +146,7 @@ public class ThemeSkill implements JSONable {
         @Override
         public String toJSONString() {
             return "{" +
-                "\"description\":\"" + description + "\"," +
+                "\"description\":" + Util.quote(description) + "," +
                 "\"values\":" + Arrays.toString(values) +
                 "}";
         }
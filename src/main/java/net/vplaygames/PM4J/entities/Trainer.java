@@ -16,6 +16,7 @@
 package net.vplaygames.PM4J.entities;
 
 import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.core.Metrics;
 import net.vplaygames.PM4J.core.Util;
 import net.vplaygames.vjson.JSONObject;
 import net.vplaygames.vjson.JSONValue;
@@ -33,6 +34,8 @@ import java.util.List;
  * @author Vaibhav Nargwani
  */
 public class Trainer implements JSONable {
+    /** The ID of this trainer, dense and unique within the {@link TrainerDataCache}, -1 if this trainer has no name. */
+    public final int id;
     /** The name of this trainer. */
     public final String name;
     /** The URL which corresponds to the image of this trainer on PokemasDB. */
@@ -45,17 +48,32 @@ public class Trainer implements JSONable {
     public final List<Pokemon> pokemonData;
 
     public Trainer(String name, String[] pokemon) {
+        this(name, pokemon, new ArrayList<>());
+    }
+
+    private Trainer(String name, String[] pokemon, List<Pokemon> pokemonData) {
         this.name = name;
         this.pokemon = pokemon;
         this.img = "https://pokemasdb.com/trainer/image/" + name + ".png";
         this.data = "https://pokemasdb.com/trainer/" + resolve(name);
-        pokemonData = new ArrayList<>();
+        this.pokemonData = pokemonData;
         if (name.equals("")) {
+            this.id = -1;
             return;
         }
+        this.id = TrainerDataCache.getInstance().register(this);
         TrainerDataCache.getInstance().put(name, this);
     }
 
+    /**
+     * Returns the {@link Pokemon#id IDs} of the Pokemon this Trainer has formed a Sync Pair with.
+     *
+     * @return the IDs of the Pokemon, in the order of {@link #pokemonData}
+     */
+    public int[] getPokemonIds() {
+        return pokemonData.stream().mapToInt(p -> p.id).toArray();
+    }
+
     /**
      * Adds a Pokemon to the list of Pokemon
      *
@@ -85,10 +103,10 @@ public class Trainer implements JSONable {
     @Override
     public String toJSONString() {
         return "{" +
-            "\"name\":\"" + name + "\"," +
+            "\"name\":" + Util.quote(name) + "," +
             "\"pokemon\":" + Util.toString(pokemon) + "," +
-            "\"image\":\"" + img + "\"," +
-            "\"data\":\"" + data + "\"," +
+            "\"image\":" + Util.quote(img) + "," +
+            "\"data\":" + Util.quote(data) + "," +
             "\"pokemonData\":" + pokemonData +
             "}";
     }
@@ -105,6 +123,30 @@ public class Trainer implements JSONable {
         return parse(JSONValue.parse(json));
     }
 
+    /**
+     * Parses the given {@code String} to Trainer Data, optionally without parsing its Pokemon.
+     *
+     * @param json The JSON String to be parsed
+     * @param lazy if true, the Pokemon are parsed on first access, see {@link #parse(JSONValue, boolean)};
+     *             only the slice of the text of each Pokemon is kept until then, the text is not parsed beforehand
+     * @return The Trainer Data object parsed from the JSON String
+     * @throws ClassCastException   if the required value was unable to be cast into the desired type
+     * @throws NullPointerException if the required values were not present in the String
+     */
+    public static Trainer parse(String json, boolean lazy) {
+        int[] range = lazy ? LazyPokemonList.findArray(json, "pokemonData") : null;
+        if (range == null) return parse(JSONValue.parse(json), lazy);
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        // the Pokemon are cut out of the text before it is parsed, so only the text of each one is kept
+        JSONObject jo = JSONValue.parse(json.substring(0, range[0]) + "[]" + json.substring(range[1])).asObject();
+        String name = jo.get("name").asString();
+        String[] pokemon = jo.get("pokemon").asList(JSONValue::asString).toArray(new String[0]);
+        Trainer trainer = new Trainer(name, pokemon, new LazyPokemonList(LazyPokemonList.split(json, range[0], range[1])));
+        if (timed) Metrics.getInstance().entityParsed(Trainer.class, System.nanoTime() - start);
+        return trainer;
+    }
+
     /**
      * Parses the given {@code JSONValue} to a Trainer Data
      *
@@ -114,11 +156,38 @@ public class Trainer implements JSONable {
      * @throws NullPointerException if the required values were not present in the {@code JSONValue}
      */
     public static Trainer parse(JSONValue val) {
+        return parse(val, false);
+    }
+
+    /**
+     * Parses the given {@code JSONValue} to a Trainer Data, optionally without parsing its Pokemon.
+     * <br>If {@code lazy} is true, the {@code JSONValue} of each Pokemon is kept and each entry of
+     * {@link #pokemonData} is parsed (and registered in the caches) the first time it is accessed.
+     * This saves constructing the Pokemon, but not the memory of their parsed JSON, which is already built;
+     * {@link #parse(String, boolean)} keeps only the text of each Pokemon instead.
+     * Until then, that Pokemon, its moves, skills and grid are not present in any of the caches.
+     * The list is safe to be accessed from multiple threads.
+     *
+     * @param val  The {@code JSONValue} to be parsed
+     * @param lazy if true, the Pokemon are parsed on first access, otherwise immediately.
+     * @return The Trainer Data object parsed from the JSON String
+     * @throws ClassCastException   if the required value was unable to be cast into the desired type
+     * @throws NullPointerException if the required values were not present in the {@code JSONValue}
+     */
+    public static Trainer parse(JSONValue val, boolean lazy) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
         JSONObject jo = val.asObject();
         String name = jo.get("name").asString();
         String[] pokemon = jo.get("pokemon").asList(JSONValue::asString).toArray(new String[0]);
-        Trainer trainer = new Trainer(name, pokemon);
-        jo.get("pokemonData").asList(Pokemon::parse).forEach(trainer::add);
+        Trainer trainer;
+        if (lazy) {
+            trainer = new Trainer(name, pokemon, new LazyPokemonList(jo.get("pokemonData").asList(v -> v)));
+        } else {
+            trainer = new Trainer(name, pokemon);
+            jo.get("pokemonData").asList(Pokemon::parse).forEach(trainer::add);
+        }
+        if (timed) Metrics.getInstance().entityParsed(Trainer.class, System.nanoTime() - start);
         return trainer;
     }
 }
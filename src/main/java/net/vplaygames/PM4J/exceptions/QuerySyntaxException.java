@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.exceptions;
+
+/**
+ * This Exception is thrown while parsing a {@link net.vplaygames.PM4J.query.Query Query}
+ * indicating that the query is not valid.
+ *
+ * @since 1.1.0
+ * @author Vaibhav Nargwani
+ */
+public class QuerySyntaxException extends IllegalArgumentException {
+    private final int position;
+
+    public QuerySyntaxException(String message, String query, int position) {
+        super(message + " at position " + position + " of \"" + query + "\"");
+        this.position = position;
+    }
+
+    /**
+     * Returns the position in the query at which the error was found.
+     *
+     * @return the index of the character at which the error was found
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.StatRange;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads Trainers, along with their Pokemon, written by a {@link BinaryWriter}.
+ * <br>The entities are constructed like when they are parsed from JSON, so they are also put in the Caches.
+ * Moves, Passive Skills and Theme Skills which were written once and referred to later are read as the same object.
+ * For example:-
+ * <pre><code>
+ *     try (BinaryReader reader = new BinaryReader(new FileInputStream("pm4j.bin"))) {
+ *         for (Trainer trainer = reader.read(); trainer != null; trainer = reader.read())
+ *             System.out.println(trainer.name);
+ *     }
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see BinaryWriter
+ */
+public class BinaryReader implements Closeable {
+    private static final int CHUNK = 1 << 12;
+    private final InputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private final List<Move> moves = new ArrayList<>();
+    private final List<Passive> passives = new ArrayList<>();
+    private final List<ThemeSkill> themeSkills = new ArrayList<>();
+    // whether the stream is only being checked, in which case no entities are constructed
+    private final boolean validating;
+    // the amount of bytes in the stream, when known, and the amount read so far
+    private final long limit;
+    private long position;
+    private boolean finished;
+
+    /**
+     * Constructs a new BinaryReader and reads the header of the format.
+     *
+     * @param in the stream to read from, which is closed when this reader is closed
+     * @throws IOException if an I/O error occurs or the stream was not written by a {@link BinaryWriter}
+     */
+    public BinaryReader(InputStream in) throws IOException {
+        this(in, false, Long.MAX_VALUE);
+    }
+
+    private BinaryReader(InputStream in, boolean validating, long limit) throws IOException {
+        this.in = new BufferedInputStream(in, 1 << 16);
+        this.validating = validating;
+        this.limit = limit;
+        for (byte b : BinaryWriter.MAGIC)
+            if (readByte() != b) throw new IOException("Not a PM4J binary stream!");
+        int version = readVarInt();
+        if (version != BinaryWriter.VERSION)
+            throw new IOException("Unsupported PM4J binary version " + version + "!");
+    }
+
+    /**
+     * Reads all the Trainers from the given stream and closes it.
+     *
+     * @param in the stream to read from
+     * @return the Trainers read
+     * @throws IOException if an I/O error occurs or the stream was not written by a {@link BinaryWriter}
+     */
+    public static List<Trainer> readAll(InputStream in) throws IOException {
+        List<Trainer> tor = new ArrayList<>();
+        try (BinaryReader reader = new BinaryReader(in)) {
+            for (Trainer trainer = reader.read(); trainer != null; trainer = reader.read())
+                tor.add(trainer);
+        }
+        return tor;
+    }
+
+    /**
+     * Checks that the given bytes are a complete stream written by a {@link BinaryWriter},
+     * without constructing any entity, so the Caches are left untouched.
+     *
+     * @param bytes the bytes to be checked
+     * @throws IOException if the bytes are not a complete stream written by a {@link BinaryWriter}
+     */
+    public static void validate(byte[] bytes) throws IOException {
+        try (BinaryReader reader = new BinaryReader(new ByteArrayInputStream(bytes), true, bytes.length)) {
+            while (!reader.finished)
+                reader.read();
+            if (reader.in.read() != -1) throw new IOException("Unexpected data after the end of the stream!");
+        }
+    }
+
+    /**
+     * Reads the next Trainer, along with its Pokemon.
+     *
+     * @return the next Trainer, {@code null} if all the Trainers have been read
+     * @throws IOException if an I/O error occurs
+     */
+    public Trainer read() throws IOException {
+        if (finished || readByte() == 0) {
+            finished = true;
+            return null;
+        }
+        String name = readString();
+        String[] pokemon = readStrings();
+        Trainer tor = validating ? null : new Trainer(name, pokemon);
+        for (int i = readLength(); i > 0; i--) {
+            Pokemon p = readPokemon();
+            if (tor != null) tor.add(p);
+        }
+        return tor;
+    }
+
+    private Pokemon readPokemon() throws IOException {
+        String name = readString();
+        String trainer = readString();
+        String syncPair = readString();
+        String[] typing = readStrings();
+        String weakness = readString();
+        String role = readString();
+        int rarity = readInt();
+        String gender = readString();
+        String[] otherForms = readStrings();
+        boolean ex = readByte() != 0;
+        Stats min = readStats();
+        Stats max = readStats();
+        SyncMove syncMove = readSyncMove();
+        List<Move> moves = new ArrayList<>();
+        for (int i = readLength(); i > 0; i--)
+            moves.add(readMove());
+        List<Passive> passives = new ArrayList<>();
+        for (int i = readLength(); i > 0; i--)
+            passives.add(readPassive());
+        List<ThemeSkill> themeSkills = new ArrayList<>();
+        for (int i = readLength(); i > 0; i--)
+            themeSkills.add(readThemeSkill());
+        List<SyncTile> grid = new ArrayList<>();
+        for (int i = readLength(); i > 0; i--) {
+            String bonus = readString();
+            int syncOrbCost = readInt(), energyCost = readInt(), reqSyncLevel = readInt(), x = readInt(), y = readInt();
+            if (!validating) grid.add(new SyncTile(syncPair, name, grid.size(), bonus, syncOrbCost, energyCost, reqSyncLevel, x, y));
+        }
+        if (validating) return null;
+        return new Pokemon(name, trainer, syncPair, typing, weakness, role, rarity, gender, otherForms, ex, new StatRange(min, max), syncMove, moves, passives, themeSkills, grid);
+    }
+
+    private Stats readStats() throws IOException {
+        int hp = readInt(), atk = readInt(), def = readInt(), spAtk = readInt(), spDef = readInt(), speed = readInt(), bulk = readInt();
+        return validating ? null : new Stats(hp, atk, def, spAtk, spDef, speed, bulk);
+    }
+
+    private SyncMove readSyncMove() throws IOException {
+        if (readByte() == 0) return null;
+        String name = readString(), type = readString(), category = readString();
+        int minPower = readInt();
+        String target = readString(), description = readString();
+        return validating ? null : new SyncMove(name, type, category, minPower, target, description);
+    }
+
+    private Move readMove() throws IOException {
+        int reference = readVarInt();
+        if (reference != 0) return referenced(moves, reference - 1);
+        String name = readString(), type = readString(), category = readString();
+        int minPower = readInt(), accuracy = readInt();
+        String target = readString();
+        int cost = readInt(), uses = readInt();
+        String effect = readString();
+        Move tor = validating ? null : new Move(name, type, category, minPower, accuracy, target, cost, uses, effect);
+        moves.add(tor);
+        return tor;
+    }
+
+    private Passive readPassive() throws IOException {
+        int reference = readVarInt();
+        if (reference != 0) return referenced(passives, reference - 1);
+        String name = readString(), description = readString();
+        Passive tor = validating ? null : new Passive(name, description);
+        passives.add(tor);
+        return tor;
+    }
+
+    private ThemeSkill readThemeSkill() throws IOException {
+        int reference = readVarInt();
+        if (reference != 0) return referenced(themeSkills, reference - 1);
+        String name = readString();
+        String tag = readString();
+        String category = readString();
+        String condition = readString();
+        List<ThemeSkill.Effect> effects = new ArrayList<>();
+        for (int i = readLength(); i > 0; i--) {
+            String description = readString();
+            int length = readLength();
+            int[] values = new int[Math.min(length, CHUNK)];
+            for (int v = 0; v < length; v++) {
+                if (v == values.length) values = Arrays.copyOf(values, grow(v, length));
+                values[v] = readInt();
+            }
+            if (!validating) effects.add(new ThemeSkill.Effect(description, values));
+        }
+        ThemeSkill tor = validating ? null : new ThemeSkill(name, tag, category, condition, effects);
+        themeSkills.add(tor);
+        return tor;
+    }
+
+    private String[] readStrings() throws IOException {
+        int length = readLength();
+        String[] tor = new String[Math.min(length, CHUNK)];
+        for (int i = 0; i < length; i++) {
+            if (i == tor.length) tor = Arrays.copyOf(tor, grow(i, length));
+            tor[i] = readString();
+        }
+        return tor;
+    }
+
+    private String readString() throws IOException {
+        int reference = readVarInt();
+        if (reference == 0) return null;
+        if (reference != 1) return referenced(strings, reference - 2);
+        int length = readLength();
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        for (int read = 0, n; read < length; read += n) {
+            if (read == bytes.length) bytes = Arrays.copyOf(bytes, grow(read, length));
+            if ((n = in.read(bytes, read, bytes.length - read)) == -1) throw new EOFException();
+            position += n;
+        }
+        String tor = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(tor);
+        return tor;
+    }
+
+    private static <T> T referenced(List<T> list, int index) throws IOException {
+        if (index < 0 || index >= list.size()) throw new IOException("Reference to an entry which has not been read!");
+        return list.get(index);
+    }
+
+    // every element takes at least a byte, so a length longer than the rest of the stream can only be corrupt
+    private int readLength() throws IOException {
+        int tor = readVarInt();
+        if (tor < 0 || tor > limit - position)
+            throw new IOException("Invalid length " + Integer.toUnsignedString(tor) + "!");
+        return tor;
+    }
+
+    // the arrays grow while they are read, so a corrupt length in a stream of unknown size fails with an EOFException
+    // instead of allocating all of it up front
+    private static int grow(int size, int length) {
+        return (int) Math.min(length, size * 2L);
+    }
+
+    private int readInt() throws IOException {
+        int value = readVarInt();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private int readVarInt() throws IOException {
+        int tor = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            tor |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return tor;
+        }
+        throw new IOException("Malformed variable length integer!");
+    }
+
+    private int readByte() throws IOException {
+        int tor = in.read();
+        if (tor == -1) throw new EOFException();
+        position++;
+        return tor;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes Trainers, along with their Pokemon, in a compact binary format which can be read by a {@link BinaryReader}.
+ * <br>Integers are written as variable length integers, so small numbers take a single byte,
+ * and every string, Move, Passive Skill and Theme Skill is written only once, the first time it is seen.
+ * Later occurrences are written as a reference to the first one, so a Move used by many Pokemon takes a few bytes each time.
+ * Moves, Passive Skills and Theme Skills are first matched by identity, and only compared by their contents
+ * the first time each object is seen, as the Pokemon parsed from JSON have their own objects with equal contents.
+ * For example:-
+ * <pre><code>
+ *     try (BinaryWriter writer = new BinaryWriter(new FileOutputStream("pm4j.bin"))) {
+ *         for (Trainer trainer : TrainerDataCache.getInstance().values())
+ *             writer.write(trainer);
+ *     }
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see BinaryReader
+ */
+public class BinaryWriter implements Closeable {
+    static final byte[] MAGIC = {'P', 'M', '4', 'J'};
+    static final int VERSION = 1;
+    private final OutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<List<Object>, Integer> moves = new HashMap<>();
+    private final Map<List<Object>, Integer> passives = new HashMap<>();
+    private final Map<List<Object>, Integer> themeSkills = new HashMap<>();
+    // the index of the contents of each object already written, so equal objects are compared only once
+    private final Map<Object, Integer> written = new IdentityHashMap<>();
+    private boolean closed;
+
+    /**
+     * Constructs a new BinaryWriter and writes the header of the format.
+     *
+     * @param out the stream to write to, which is closed when this writer is closed
+     * @throws IOException if an I/O error occurs
+     */
+    public BinaryWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        this.out.write(MAGIC);
+        writeVarInt(VERSION);
+    }
+
+    /**
+     * Writes all the given Trainers to the given stream and closes it.
+     *
+     * @param trainers the Trainers to be written
+     * @param out      the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeAll(Collection<Trainer> trainers, OutputStream out) throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(out)) {
+            for (Trainer trainer : trainers)
+                writer.write(trainer);
+        }
+    }
+
+    /**
+     * Writes the given Trainer, along with its Pokemon.
+     *
+     * @param trainer the Trainer to be written
+     * @throws IOException           if an I/O error occurs
+     * @throws IllegalStateException if this writer has been {@link #finish() finished}
+     */
+    public void write(Trainer trainer) throws IOException {
+        if (closed) throw new IllegalStateException("Cannot write after the end of the data has been written!");
+        out.write(1);
+        writeString(trainer.name);
+        writeStrings(trainer.pokemon);
+        writeVarInt(trainer.pokemonData.size());
+        for (Pokemon p : trainer.pokemonData)
+            write(p);
+    }
+
+    private void write(Pokemon p) throws IOException {
+        writeString(p.name);
+        writeString(p.trainer);
+        writeString(p.syncPair);
+        writeStrings(p.typing);
+        writeString(p.weakness);
+        writeString(p.role);
+        writeInt(p.rarity);
+        writeString(p.gender);
+        writeStrings(p.otherForms);
+        out.write(p.ex ? 1 : 0);
+        write(p.stats.base);
+        write(p.stats.max);
+        write(p.syncMove);
+        writeVarInt(p.moves.size());
+        for (Move m : p.moves)
+            write(m);
+        writeVarInt(p.passives.size());
+        for (Passive passive : p.passives)
+            write(passive);
+        writeVarInt(p.themeSkills.size());
+        for (ThemeSkill t : p.themeSkills)
+            write(t);
+        writeVarInt(p.grid.size());
+        for (SyncTile tile : p.grid)
+            write(tile);
+    }
+
+    private void write(Stats s) throws IOException {
+        writeInt(s.hp);
+        writeInt(s.atk);
+        writeInt(s.def);
+        writeInt(s.spAtk);
+        writeInt(s.spDef);
+        writeInt(s.speed);
+        writeInt(s.bulk);
+    }
+
+    private void write(SyncMove m) throws IOException {
+        out.write(m == null ? 0 : 1);
+        if (m == null) return;
+        writeString(m.name);
+        writeString(m.type);
+        writeString(m.category);
+        writeInt(m.minPower);
+        writeString(m.target);
+        writeString(m.description);
+    }
+
+    private void write(Move m) throws IOException {
+        if (writeReference(moves, m, () -> Arrays.asList(m.name, m.type, m.category, m.minPower, m.accuracy, m.target, m.cost, m.uses, m.effect)))
+            return;
+        writeString(m.name);
+        writeString(m.type);
+        writeString(m.category);
+        writeInt(m.minPower);
+        writeInt(m.accuracy);
+        writeString(m.target);
+        writeInt(m.cost);
+        writeInt(m.uses);
+        writeString(m.effect);
+    }
+
+    private void write(Passive p) throws IOException {
+        if (writeReference(passives, p, () -> Arrays.asList(p.name, p.description)))
+            return;
+        writeString(p.name);
+        writeString(p.description);
+    }
+
+    private void write(ThemeSkill t) throws IOException {
+        if (writeReference(themeSkills, t, () -> {
+            List<Object> tor = new ArrayList<>(Arrays.asList(t.name, t.tag, t.category, t.condition));
+            for (ThemeSkill.Effect e : t.effects) {
+                tor.add(e.description);
+                tor.add(IntBuffer.wrap(e.values));
+            }
+            return tor;
+        }))
+            return;
+        writeString(t.name);
+        writeString(t.tag);
+        writeString(t.category);
+        writeString(t.condition);
+        writeVarInt(t.effects.size());
+        for (ThemeSkill.Effect e : t.effects) {
+            writeString(e.description);
+            writeVarInt(e.values.length);
+            for (int v : e.values)
+                writeInt(v);
+        }
+    }
+
+    private void write(SyncTile tile) throws IOException {
+        writeString(tile.bonus);
+        writeInt(tile.syncOrbCost);
+        writeInt(tile.energyCost);
+        writeInt(tile.reqSyncLevel);
+        writeInt(tile.gridPosX);
+        writeInt(tile.gridPosY);
+    }
+
+    // writes 0 followed by the value if it is seen for the first time, otherwise 1 + the index of its first occurrence
+    private boolean writeReference(Map<List<Object>, Integer> table, Object value, Supplier<List<Object>> contents) throws IOException {
+        Integer index = written.get(value);
+        if (index == null) {
+            List<Object> key = contents.get();
+            index = table.get(key);
+            if (index == null) {
+                table.put(key, table.size());
+                written.put(value, table.size() - 1);
+                writeVarInt(0);
+                return false;
+            }
+            written.put(value, index);
+        }
+        writeVarInt(index + 1);
+        return true;
+    }
+
+    private void writeStrings(String[] values) throws IOException {
+        writeVarInt(values.length);
+        for (String s : values)
+            writeString(s);
+    }
+
+    // 0 for null, 1 followed by the string if it is seen for the first time, otherwise 2 + the index of its first occurrence
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = strings.get(s);
+        if (index != null) {
+            writeVarInt(index + 2);
+            return;
+        }
+        strings.put(s, strings.size());
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(1);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // zigzag encoding, so small negative numbers also take a single byte
+    private void writeInt(int value) throws IOException {
+        writeVarInt(value << 1 ^ value >> 31);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Writes the end of the data and flushes the stream, without closing it.
+     * Nothing can be written after this method is called.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.write(0);
+        out.flush();
+    }
+
+    /**
+     * Writes the end of the data, if not already written, and closes the stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.core.Logger;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
+
+/**
+ * Publishes versioned snapshots of a dataset to a directory shared by many processes,
+ * which can load them using a {@link SnapshotSubscriber}.
+ * <br>Each snapshot is written in the format of {@link BinaryWriter} to a temporary file, which is then
+ * atomically renamed to {@code snapshot-<version>.pm4j}, so a subscriber never sees a partially written snapshot.
+ * The version is claimed beforehand by creating the empty file of that name, which fails if it already exists,
+ * so publishers in different processes sharing the directory never overwrite each other's snapshots.
+ * Only the latest few snapshots are kept.
+ * For example:-
+ * <pre><code>
+ *     SnapshotPublisher publisher = new SnapshotPublisher(Paths.get("/var/lib/pm4j"));
+ *     publisher.publish(new Connection().requestAllTrainers(false));
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see SnapshotSubscriber
+ */
+public class SnapshotPublisher {
+    static final Pattern FILE_NAME = Pattern.compile("snapshot-(\\d+)\\.pm4j");
+    static Logger logger = new Logger(SnapshotPublisher.class);
+    private final Path directory;
+    private final int retain;
+
+    /**
+     * Constructs a new SnapshotPublisher which keeps the latest 3 snapshots.
+     *
+     * @param directory the directory to publish the snapshots to, created if it does not exist
+     * @throws IOException if the directory could not be created
+     */
+    public SnapshotPublisher(Path directory) throws IOException {
+        this(directory, 3);
+    }
+
+    /**
+     * Constructs a new SnapshotPublisher.
+     *
+     * @param directory the directory to publish the snapshots to, created if it does not exist
+     * @param retain    the amount of latest snapshots to keep, at least 1
+     * @throws IOException if the directory could not be created
+     */
+    public SnapshotPublisher(Path directory, int retain) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.retain = Math.max(1, retain);
+    }
+
+    /**
+     * Publishes the Trainers in the {@link TrainerDataCache}.
+     *
+     * @return the file of the published snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    public Path publishFromCache() throws IOException {
+        return publish(new ArrayList<>(TrainerDataCache.getInstance().values()));
+    }
+
+    /**
+     * Publishes a snapshot of the given Trainers, with a version higher than the latest snapshot in the directory.
+     *
+     * @param trainers the Trainers to be published, along with their Pokemon
+     * @return the file of the published snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized Path publish(Collection<Trainer> trainers) throws IOException {
+        Path temp = Files.createTempFile(directory, ".snapshot-", ".tmp");
+        long version;
+        Path tor;
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile());
+                 BinaryWriter writer = new BinaryWriter(out)) {
+                for (Trainer trainer : trainers)
+                    writer.write(trainer);
+                writer.finish();
+                out.getChannel().force(true);
+            }
+            List<Long> versions = versions(directory);
+            version = versions.isEmpty() ? 1 : versions.get(versions.size() - 1) + 1;
+            while (true) {
+                tor = directory.resolve(fileName(version));
+                try {
+                    Files.createFile(tor);
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    version++;
+                }
+            }
+            // replaces only the empty file claimed above
+            Files.move(temp, tor, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        List<Long> versions = versions(directory);
+        for (int i = 0; i < versions.size() - retain; i++)
+            Files.deleteIfExists(directory.resolve(fileName(versions.get(i))));
+        long published = version;
+        logger.log(() -> "Published snapshot " + published + " with " + trainers.size() + " trainers.", INFO);
+        return tor;
+    }
+
+    static String fileName(long version) {
+        return "snapshot-" + version + ".pm4j";
+    }
+
+    // the versions of the snapshots in the directory, in ascending order
+    static List<Long> versions(Path directory) throws IOException {
+        List<Long> tor = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (m.matches()) tor.add(Long.parseLong(m.group(1)));
+            });
+        }
+        Collections.sort(tor);
+        return tor;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.caches.PokemasDBCache;
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.core.Logger;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static net.vplaygames.PM4J.core.Logger.Mode.ERROR;
+import static net.vplaygames.PM4J.core.Logger.Mode.INFO;
+
+/**
+ * Loads the snapshots published by a {@link SnapshotPublisher} into the Caches, as soon as they are published.
+ * <br>A background thread watches the directory using a {@link WatchService}, and whenever a snapshot newer than
+ * the loaded one appears, the Caches are {@link PokemasDBCache#clearCaches() cleared} and filled from it.
+ * The whole snapshot is read and {@link BinaryReader#validate(byte[]) validated} before the Caches are touched,
+ * so a truncated or corrupt snapshot is rejected and the loaded data is kept. Should decoding still fail after the
+ * Caches were cleared, the snapshot which was loaded before, if any, is loaded again.
+ * <br>The swap happens while holding the write lock of {@link #getLock()}, so code which needs a consistent view of
+ * the Caches can hold its read lock. The lock of the {@link TrainerDataCache} instance is held as well, as for parsing. As the snapshot is decoded from memory, the swap takes very little time.
+ * For example:-
+ * <pre><code>
+ *     SnapshotSubscriber subscriber = new SnapshotSubscriber(Paths.get("/var/lib/pm4j"));
+ *     subscriber.addListener(trainers -&gt; System.out.println("Loaded " + trainers.size() + " trainers"));
+ *     subscriber.start();
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see SnapshotPublisher
+ */
+public class SnapshotSubscriber implements Closeable {
+    static Logger logger = new Logger(SnapshotSubscriber.class);
+    private static final ReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private final Path directory;
+    private final List<Consumer<List<Trainer>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile long version;
+    // the bytes of the loaded snapshot, which are loaded again should decoding the next one fail
+    private byte[] loaded;
+    private WatchService watcher;
+    private Thread thread;
+
+    /**
+     * Constructs a new SnapshotSubscriber.
+     *
+     * @param directory the directory the snapshots are published to, created if it does not exist
+     * @throws IOException if the directory could not be created
+     */
+    public SnapshotSubscriber(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Returns the lock held while the Caches are swapped,
+     * shared by all the subscribers as there is only a single set of Caches.
+     *
+     * @return the lock held while the Caches are swapped
+     */
+    public static ReadWriteLock getLock() {
+        return LOCK;
+    }
+
+    /**
+     * Adds a listener which is called with the loaded Trainers after every snapshot is loaded.
+     *
+     * @param listener the listener to be added
+     * @return this instance, useful for chaining.
+     */
+    public SnapshotSubscriber addListener(Consumer<List<Trainer>> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Returns the version of the loaded snapshot.
+     *
+     * @return the version of the loaded snapshot, 0 if none has been loaded
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Loads the latest snapshot in the directory and starts watching the directory for newer ones.
+     *
+     * @return this instance, useful for chaining.
+     * @throws IOException if the latest snapshot could not be loaded or the directory could not be watched
+     */
+    public synchronized SnapshotSubscriber start() throws IOException {
+        if (thread != null) return this;
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        loadLatest();
+        thread = new Thread(this::watch, "PM4J-Snapshot-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean snapshot = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                    snapshot |= event.context() instanceof Path &&
+                        SnapshotPublisher.FILE_NAME.matcher(event.context().toString()).matches();
+                key.reset();
+                if (!snapshot) continue;
+                try {
+                    loadLatest();
+                } catch (IOException | RuntimeException e) {
+                    logger.log("Could not load the latest snapshot: " + e, ERROR);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Loads the latest snapshot in the directory, if it is newer than the loaded one.
+     *
+     * @return true if a snapshot was loaded
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized boolean loadLatest() throws IOException {
+        List<Long> versions = SnapshotPublisher.versions(directory);
+        if (versions.isEmpty() || versions.get(versions.size() - 1) <= version) return false;
+        long latest = versions.get(versions.size() - 1);
+        byte[] snapshot = Files.readAllBytes(directory.resolve(SnapshotPublisher.fileName(latest)));
+        // an empty file is a version claimed by a publisher which is still writing it
+        if (snapshot.length == 0) return false;
+        BinaryReader.validate(snapshot);
+        List<Trainer> trainers;
+        LOCK.writeLock().lock();
+        try {
+            synchronized (TrainerDataCache.getInstance()) {
+                PokemasDBCache.getInstance().clearCaches();
+                try {
+                    trainers = BinaryReader.readAll(new ByteArrayInputStream(snapshot));
+                } catch (IOException | RuntimeException e) {
+                    PokemasDBCache.getInstance().clearCaches();
+                    if (loaded != null) BinaryReader.readAll(new ByteArrayInputStream(loaded));
+                    throw e;
+                }
+            }
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+        version = latest;
+        loaded = snapshot;
+        logger.log(() -> "Loaded snapshot " + latest + " with " + trainers.size() + " trainers.", INFO);
+        for (Consumer<List<Trainer>> listener : listeners)
+            listener.accept(trainers);
+        return true;
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread == null) return;
+        watcher.close();
+        thread.interrupt();
+        thread = null;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.caches.TrainerDataCache;
+import net.vplaygames.PM4J.core.Util;
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.Trainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exports the loaded data as a flat table, in NDJSON (one JSON object per line) or CSV, one row at a time.
+ * <br>The rows are generated from the Pokemon of the Trainers in the {@link TrainerDataCache}, or from any given Pokemon,
+ * and written to the {@link Writer} as soon as they are generated, so only a single row is held in memory.
+ * Each table has a set of named columns, of which any can be selected, and custom columns can be added.
+ * For example, one row per Sync Grid tile with the ID of its Pokemon:-
+ * <pre><code>
+ *     TableExporter.tiles()
+ *         .select("pokemonId", "title", "energyCost")
+ *         .write(Paths.get("tiles.csv"), TableExporter.Format.CSV);
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @param <R> the type of the rows of the table
+ */
+public class TableExporter<R> {
+    private final Function<Pokemon, Stream<R>> rows;
+    private final Map<String, Function<R, Object>> columns = new LinkedHashMap<>();
+    private List<String> selected;
+
+    /**
+     * Constructs a new TableExporter without any columns.
+     *
+     * @param rows gives the rows of the table generated by each Pokemon
+     */
+    public TableExporter(Function<Pokemon, Stream<R>> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Returns an exporter of a table with one row per Pokemon, including its base and max stats.
+     *
+     * @return an exporter of a table of Pokemon
+     */
+    public static TableExporter<Pokemon> pokemon() {
+        return new TableExporter<Pokemon>(Stream::of)
+            .column("id", p -> p.id)
+            .column("name", p -> p.name)
+            .column("trainer", p -> p.trainer)
+            .column("syncPair", p -> p.syncPair)
+            .column("typing", p -> p.typing)
+            .column("weakness", p -> p.weakness)
+            .column("role", p -> p.role)
+            .column("rarity", p -> p.rarity)
+            .column("gender", p -> p.gender)
+            .column("ex", p -> p.ex)
+            .column("baseHp", p -> p.stats.base.hp)
+            .column("baseAtk", p -> p.stats.base.atk)
+            .column("baseDef", p -> p.stats.base.def)
+            .column("baseSpAtk", p -> p.stats.base.spAtk)
+            .column("baseSpDef", p -> p.stats.base.spDef)
+            .column("baseSpeed", p -> p.stats.base.speed)
+            .column("maxHp", p -> p.stats.max.hp)
+            .column("maxAtk", p -> p.stats.max.atk)
+            .column("maxDef", p -> p.stats.max.def)
+            .column("maxSpAtk", p -> p.stats.max.spAtk)
+            .column("maxSpDef", p -> p.stats.max.spDef)
+            .column("maxSpeed", p -> p.stats.max.speed)
+            .column("syncMove", p -> p.syncMove == null ? null : p.syncMove.name);
+    }
+
+    /**
+     * Returns an exporter of a table with one row per Move of each Pokemon.
+     *
+     * @return an exporter of a table of Moves
+     */
+    public static TableExporter<Row<Move>> moves() {
+        return new TableExporter<Row<Move>>(p -> p.moves.stream().map(m -> new Row<>(p, m)))
+            .column("pokemonId", r -> r.pokemon.id)
+            .column("syncPair", r -> r.pokemon.syncPair)
+            .column("moveId", r -> r.value.id)
+            .column("name", r -> r.value.name)
+            .column("type", r -> r.value.type)
+            .column("category", r -> r.value.category)
+            .column("minPower", r -> r.value.minPower)
+            .column("maxPower", r -> r.value.getMaxPower())
+            .column("accuracy", r -> r.value.accuracy)
+            .column("target", r -> r.value.target)
+            .column("cost", r -> r.value.cost)
+            .column("uses", r -> r.value.uses)
+            .column("effect", r -> r.value.effect);
+    }
+
+    /**
+     * Returns an exporter of a table with one row per Passive Skill of each Pokemon.
+     *
+     * @return an exporter of a table of Passive Skills
+     */
+    public static TableExporter<Row<Passive>> passives() {
+        return new TableExporter<Row<Passive>>(p -> p.passives.stream().map(s -> new Row<>(p, s)))
+            .column("pokemonId", r -> r.pokemon.id)
+            .column("syncPair", r -> r.pokemon.syncPair)
+            .column("passiveId", r -> r.value.id)
+            .column("name", r -> r.value.name)
+            .column("family", r -> r.value.family)
+            .column("level", r -> r.value.level)
+            .column("description", r -> r.value.description);
+    }
+
+    /**
+     * Returns an exporter of a table with one row per tile of the Sync Grid of each Pokemon.
+     *
+     * @return an exporter of a table of Sync Grid tiles
+     */
+    public static TableExporter<Row<SyncTile>> tiles() {
+        return new TableExporter<Row<SyncTile>>(p -> p.grid.stream().map(t -> new Row<>(p, t)))
+            .column("pokemonId", r -> r.pokemon.id)
+            .column("syncPair", r -> r.pokemon.syncPair)
+            .column("tileId", r -> r.value.getId())
+            .column("title", r -> r.value.title)
+            .column("description", r -> r.value.description)
+            .column("syncOrbCost", r -> r.value.syncOrbCost)
+            .column("energyCost", r -> r.value.energyCost)
+            .column("reqSyncLevel", r -> r.value.reqSyncLevel)
+            .column("x", r -> r.value.gridPosX)
+            .column("y", r -> r.value.gridPosY);
+    }
+
+    /**
+     * Adds a column to this table.
+     *
+     * @param name  the name of the column
+     * @param value gives the value of the column in each row
+     * @return this instance, useful for chaining.
+     */
+    public TableExporter<R> column(String name, Function<R, Object> value) {
+        columns.put(name, value);
+        return this;
+    }
+
+    /**
+     * Selects the columns to be exported, in the given order. All the columns are exported by default.
+     *
+     * @param names the names of the columns
+     * @return this instance, useful for chaining.
+     * @throws IllegalArgumentException if any of the columns does not exist
+     */
+    public TableExporter<R> select(String... names) {
+        for (String name : names)
+            if (!columns.containsKey(name))
+                throw new IllegalArgumentException("No column named " + name + "!");
+        selected = names.length == 0 ? null : new ArrayList<>(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Returns the names of the columns to be exported.
+     *
+     * @return the names of the columns to be exported
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(selected == null ? new ArrayList<>(columns.keySet()) : selected);
+    }
+
+    /**
+     * Writes the rows of all the Pokemon of the Trainers in the {@link TrainerDataCache} to the given file.
+     *
+     * @param path   the file to write to, replaced if it exists
+     * @param format the format of the rows
+     * @return the amount of rows written
+     * @throws IOException if an I/O error occurs
+     */
+    public long write(Path path, Format format) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            return write(writer, format);
+        }
+    }
+
+    /**
+     * Writes the rows of all the Pokemon of the Trainers in the {@link TrainerDataCache}.
+     *
+     * @param writer the writer to write to, which is neither buffered nor closed by this method
+     * @param format the format of the rows
+     * @return the amount of rows written
+     * @throws IOException if an I/O error occurs
+     */
+    public long write(Writer writer, Format format) throws IOException {
+        long tor = write(writer, format, Collections.emptyList(), true);
+        for (Trainer trainer : TrainerDataCache.getInstance().values())
+            tor += write(writer, format, trainer.pokemonData, false);
+        return tor;
+    }
+
+    /**
+     * Writes the rows of the given Pokemon.
+     *
+     * @param writer  the writer to write to, which is neither buffered nor closed by this method
+     * @param format  the format of the rows
+     * @param pokemon the Pokemon whose rows are to be written
+     * @return the amount of rows written
+     * @throws IOException if an I/O error occurs
+     */
+    public long write(Writer writer, Format format, Iterable<Pokemon> pokemon) throws IOException {
+        return write(writer, format, pokemon, true);
+    }
+
+    private long write(Writer writer, Format format, Iterable<Pokemon> pokemon, boolean header) throws IOException {
+        List<String> names = getColumns();
+        List<Function<R, Object>> values = new ArrayList<>(names.size());
+        for (String name : names)
+            values.add(columns.get(name));
+        if (header && format == Format.CSV) {
+            for (int i = 0; i < names.size(); i++) {
+                if (i != 0) writer.write(',');
+                writeCSV(writer, names.get(i));
+            }
+            writer.write('\n');
+        }
+        long[] tor = {0};
+        try {
+            for (Pokemon p : pokemon) {
+                rows.apply(p).forEach(row -> {
+                    try {
+                        writeRow(writer, format, names, values, row);
+                        tor[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return tor[0];
+    }
+
+    private void writeRow(Writer writer, Format format, List<String> names, List<Function<R, Object>> values, R row) throws IOException {
+        if (format == Format.NDJSON) writer.write('{');
+        for (int i = 0; i < names.size(); i++) {
+            if (i != 0) writer.write(',');
+            Object value = values.get(i).apply(row);
+            if (format == Format.CSV) {
+                writeCSV(writer, value instanceof String[] ? String.join("|", (String[]) value) : value == null ? "" : String.valueOf(value));
+            } else {
+                writeJSON(writer, names.get(i));
+                writer.write(':');
+                writeJSON(writer, value);
+            }
+        }
+        writer.write(format == Format.NDJSON ? "}\n" : "\n");
+    }
+
+    private static void writeCSV(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJSON(Writer writer, Object value) throws IOException {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            writer.write(String.valueOf(value));
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            writer.write('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i != 0) writer.write(',');
+                writeJSON(writer, array[i]);
+            }
+            writer.write(']');
+        } else {
+            writer.write(Util.quote(value.toString()));
+        }
+    }
+
+    /**
+     * A row of a table of the values of a Pokemon, like its Moves or its Sync Grid tiles.
+     * <br>All of this class's variables are {@code public final} i.e. available without the use of getters
+     * but not assignable.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     * @param <T> the type of the value
+     */
+    public static class Row<T> {
+        /** The Pokemon which has the value. */
+        public final Pokemon pokemon;
+        /** The value of this row. */
+        public final T value;
+
+        public Row(Pokemon pokemon, T value) {
+            this.pokemon = pokemon;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The format of the exported rows.
+     */
+    public enum Format {
+        /** Newline delimited JSON, one object per row. */
+        NDJSON,
+        /** Comma separated values, with a header row of the names of the columns. */
+        CSV
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.query;
+
+import net.vplaygames.PM4J.caches.MoveDataCache;
+import net.vplaygames.PM4J.caches.PokemonSet;
+import net.vplaygames.PM4J.caches.SkillDataCache;
+import net.vplaygames.PM4J.caches.ThemeSkillDataCache;
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncTile;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The fields of a Pokemon which can be used in a {@link Query}.
+ * <br>The fields of the Moves, Passive Skills, Theme Skills and Sync Grid tiles of a Pokemon have many values,
+ * one for each of them, and a comparison on such a field matches if any of the values matches.
+ * The fields of the Stats are the max Stats.
+ * <br>Some fields are indexed, which lets a {@link QueryEngine} find the Pokemon having a value of the field
+ * without checking every Pokemon. The names of the Moves, Passive Skills and Theme Skills are looked up in their
+ * {@link net.vplaygames.PM4J.caches.Cache Caches}, and the other indexed fields are indexed by the QueryEngine.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public enum Field {
+    /** The name of the Pokemon. */
+    NAME("name", true, text(p -> Stream.of(p.name))),
+    /** The name of the Trainer of the Pokemon. */
+    TRAINER("trainer", true, text(p -> Stream.of(p.trainer))),
+    /** The name of the Sync Pair. */
+    SYNC_PAIR("syncPair", true, text(p -> Stream.of(p.syncPair))),
+    /** The types of the Pokemon. */
+    TYPE("type", true, text(p -> Arrays.stream(p.typing))),
+    /** The weakness of the Pokemon. */
+    WEAKNESS("weakness", true, text(p -> Stream.of(p.weakness))),
+    /** The role of the Pokemon. */
+    ROLE("role", true, text(p -> Stream.of(p.role))),
+    /** The gender of the Pokemon. */
+    GENDER("gender", true, text(p -> Stream.of(p.gender))),
+    /** Whether the Sync Pair can be EXed, {@code true} or {@code false}. */
+    EX("ex", true, text(p -> Stream.of(String.valueOf(p.ex)))),
+    /** The rarity of the Pokemon. */
+    RARITY("rarity", true, numbers(p -> IntStream.of(p.rarity))),
+    /** The max HP of the Pokemon. */
+    HP("stats.hp", false, stat(s -> s.hp)),
+    /** The max Attack of the Pokemon. */
+    ATK("stats.atk", false, stat(s -> s.atk)),
+    /** The max Defense of the Pokemon. */
+    DEF("stats.def", false, stat(s -> s.def)),
+    /** The max Sp. Atk of the Pokemon. */
+    SP_ATK("stats.spAtk", false, stat(s -> s.spAtk)),
+    /** The max Sp. Def of the Pokemon. */
+    SP_DEF("stats.spDef", false, stat(s -> s.spDef)),
+    /** The max Speed of the Pokemon. */
+    SPEED("stats.speed", false, stat(s -> s.speed)),
+    /** The names of the Moves of the Pokemon, looked up in the {@link MoveDataCache}. */
+    MOVE_NAME("move.name", name -> {
+        MoveDataCache.Node node = MoveDataCache.getInstance().get(name);
+        return node == null ? null : node.users;
+    }, "MoveDataCache", text(p -> p.moves.stream().map(m -> m.name))),
+    /** The types of the Moves of the Pokemon. */
+    MOVE_TYPE("move.type", true, text(p -> p.moves.stream().map(m -> m.type))),
+    /** The categories of the Moves of the Pokemon. */
+    MOVE_CATEGORY("move.category", true, text(p -> p.moves.stream().map(m -> m.category))),
+    /** The targets of the Moves of the Pokemon. */
+    MOVE_TARGET("move.target", false, text(p -> p.moves.stream().map(m -> m.target))),
+    /** The max powers of the Moves of the Pokemon. */
+    MOVE_POWER("move.power", false, numbers(p -> p.moves.stream().mapToInt(Move::getMaxPower))),
+    /** The accuracies of the Moves of the Pokemon. */
+    MOVE_ACCURACY("move.accuracy", false, numbers(p -> p.moves.stream().mapToInt(m -> m.accuracy))),
+    /** The gauge costs of the Moves of the Pokemon. */
+    MOVE_COST("move.cost", false, numbers(p -> p.moves.stream().mapToInt(m -> m.cost))),
+    /** The name of the Sync Move of the Pokemon. */
+    SYNC_MOVE_NAME("syncMove.name", false, text(p -> p.syncMove == null ? Stream.empty() : Stream.of(p.syncMove.name))),
+    /** The type of the Sync Move of the Pokemon. */
+    SYNC_MOVE_TYPE("syncMove.type", true, text(p -> p.syncMove == null ? Stream.empty() : Stream.of(p.syncMove.type))),
+    /** The max power of the Sync Move of the Pokemon. */
+    SYNC_MOVE_POWER("syncMove.power", false, numbers(p -> p.syncMove == null ? IntStream.empty() : IntStream.of(p.syncMove.getMaxPower()))),
+    /** The names of the Passive Skills of the Pokemon, looked up in the {@link SkillDataCache}. */
+    PASSIVE_NAME("passive.name", name -> {
+        SkillDataCache.Node node = SkillDataCache.getInstance().get(name);
+        return node == null ? null : node.inbuilt;
+    }, "SkillDataCache", text(p -> p.passives.stream().map(s -> s.name))),
+    /** The families of the Passive Skills of the Pokemon, looked up in the {@link SkillDataCache}. */
+    PASSIVE_FAMILY("passive.family", family -> {
+        SkillDataCache.Family f = SkillDataCache.getInstance().getFamily(family);
+        return f == null ? null : f.atLeast(Integer.MIN_VALUE, false);
+    }, "SkillDataCache families", text(p -> p.passives.stream().map(s -> s.family))),
+    /** The levels of the Passive Skills of the Pokemon. */
+    PASSIVE_LEVEL("passive.level", false, numbers(p -> p.passives.stream().mapToInt(s -> s.level))),
+    /** The names of the Theme Skills of the Pokemon, looked up in the {@link ThemeSkillDataCache}. */
+    THEME_NAME("theme.name", name -> {
+        ThemeSkillDataCache.Node node = ThemeSkillDataCache.getInstance().get(name);
+        return node == null ? null : node.pokemon;
+    }, "ThemeSkillDataCache", text(p -> p.themeSkills.stream().map(t -> t.name))),
+    /** The tags of the Theme Skills of the Pokemon. */
+    THEME_TAG("theme.tag", true, text(p -> p.themeSkills.stream().map(t -> t.tag))),
+    /** The names of the Passive Skills in the Sync Grid of the Pokemon, looked up in the {@link SkillDataCache}. */
+    GRID_PASSIVE("grid.passive", name -> {
+        SkillDataCache.Node node = SkillDataCache.getInstance().get(name);
+        return node == null ? null : node.inGrid;
+    }, "SkillDataCache", text(p -> p.grid.stream().flatMap(Field::gridPassives))),
+    /** The bonuses of the tiles in the Sync Grid of the Pokemon. */
+    GRID_BONUS("grid.bonus", false, text(p -> p.grid.stream().map(t -> t.bonus))),
+    /** The energy costs of the tiles in the Sync Grid of the Pokemon. */
+    GRID_ENERGY("grid.energy", false, numbers(p -> p.grid.stream().mapToInt(t -> t.energyCost))),
+    /** The Sync Orb costs of the tiles in the Sync Grid of the Pokemon. */
+    GRID_ORBS("grid.orbs", false, numbers(p -> p.grid.stream().mapToInt(t -> t.syncOrbCost))),
+    /** The Sync Move levels required by the tiles in the Sync Grid of the Pokemon. */
+    GRID_LEVEL("grid.level", false, numbers(p -> p.grid.stream().mapToInt(t -> t.reqSyncLevel)));
+
+    private final String name;
+    private final boolean indexed;
+    private final Values values;
+    // the index of the field in the caches, null if the field is not indexed there
+    private final Function<String, PokemonSet> cacheIndex;
+    private final String cacheName;
+
+    Field(String name, boolean indexed, Values values) {
+        this.name = name;
+        this.indexed = indexed;
+        this.values = values;
+        this.cacheIndex = null;
+        this.cacheName = null;
+    }
+
+    Field(String name, Function<String, PokemonSet> cacheIndex, String cacheName, Values values) {
+        this.name = name;
+        this.indexed = true;
+        this.values = values;
+        this.cacheIndex = cacheIndex;
+        this.cacheName = cacheName;
+    }
+
+    private static Values text(Function<Pokemon, Stream<String>> text) {
+        return new Values(text, null);
+    }
+
+    private static Values numbers(Function<Pokemon, IntStream> numbers) {
+        return new Values(null, numbers);
+    }
+
+    private static Values stat(ToIntFunction<Stats> stat) {
+        return numbers(p -> IntStream.of(stat.applyAsInt(p.stats.max)));
+    }
+
+    // the names a passive tile is registered with in the SkillDataCache by the Pokemon
+    private static Stream<String> gridPassives(SyncTile tile) {
+        if (tile.title.equals(tile.description)) return Stream.empty();
+        return tile.title.contains(":") ? Stream.of(tile.title.split(":")[1], tile.title) : Stream.of(tile.title);
+    }
+
+    /**
+     * Returns the Field with the given name, ignoring case.
+     *
+     * @param name the name of the field, like {@code move.power}
+     * @return the Field with the given name, {@code null} if there is none
+     */
+    public static Field of(String name) {
+        for (Field f : values())
+            if (f.name.equalsIgnoreCase(name)) return f;
+        return null;
+    }
+
+    /**
+     * Returns the name of this field as used in queries.
+     *
+     * @return the name of this field
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if the values of this field are numbers.
+     *
+     * @return true if the values of this field are numbers, false if they are text
+     */
+    public boolean isNumeric() {
+        return values.numbers != null;
+    }
+
+    /**
+     * Returns true if the Pokemon having a value of this field can be found without checking every Pokemon.
+     *
+     * @return true if this field is indexed, false otherwise
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    Stream<String> text(Pokemon p) {
+        return isNumeric() ? values.numbers.apply(p).mapToObj(Integer::toString) : values.text.apply(p).filter(Objects::nonNull);
+    }
+
+    IntStream numbers(Pokemon p) {
+        return values.numbers.apply(p);
+    }
+
+    PokemonSet lookupInCache(String value) {
+        return cacheIndex.apply(value);
+    }
+
+    boolean isCacheIndexed() {
+        return cacheIndex != null;
+    }
+
+    String getCacheName() {
+        return cacheName;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // the values of a field, either text or numbers
+    private static class Values {
+        final Function<Pokemon, Stream<String>> text;
+        final Function<Pokemon, IntStream> numbers;
+
+        Values(Function<Pokemon, Stream<String>> text, Function<Pokemon, IntStream> numbers) {
+            this.text = text;
+            this.numbers = numbers;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.query;
+
+import net.vplaygames.PM4J.core.Util;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.exceptions.QuerySyntaxException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A query over Pokemon, which is parsed from an expression like
+ * <pre><code>role=Strike AND type=Fire AND move.power&gt;150 AND grid.passive~"Crit"</code></pre>
+ * and can be tested against a Pokemon directly, or executed by a {@link QueryEngine}.
+ * <br>A query is made of comparisons of a {@link Field} with a value, combined using {@code AND}, {@code OR},
+ * {@code NOT} and parentheses, {@code NOT} binding the tightest and {@code OR} the loosest.
+ * The values are numbers, words or text in double quotes, in which {@code \"} is a double quote.
+ * The operators are
+ * <ul>
+ *     <li>{@code =} and {@code !=}, which compare text ignoring case and non-alphanumeric characters,
+ *     like in the {@link net.vplaygames.PM4J.caches.Cache Caches}</li>
+ *     <li>{@code ~}, which checks if the text contains the value, ignoring case</li>
+ *     <li>{@code <}, {@code <=}, {@code >} and {@code >=}, which compare numbers</li>
+ * </ul>
+ * A comparison on a field with many values, like {@code move.power}, matches if any of the values matches,
+ * and {@code !=} matches if none of the values is equal. Each comparison is matched on its own, so
+ * {@code move.type=Fire AND move.power>150} matches a Pokemon with a Fire move and another move with a power over 150.
+ * <br>Keywords and field names are case-insensitive. Queries are immutable and can be used by many threads.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see QueryEngine
+ * @see Field
+ */
+public class Query implements Predicate<Pokemon> {
+    final Expr root;
+
+    private Query(Expr root) {
+        this.root = root;
+    }
+
+    /**
+     * Parses a Query.
+     *
+     * @param query the query to be parsed
+     * @return the Query parsed
+     * @throws QuerySyntaxException if the query is not valid
+     */
+    public static Query parse(String query) {
+        return new Query(new Parser(query).parse());
+    }
+
+    @Override
+    public boolean test(Pokemon pokemon) {
+        return root.test(pokemon);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    static String normalize(String text) {
+        return Util.reduceToAlphanumeric(text).toLowerCase();
+    }
+
+    /**
+     * The operators of a comparison in a {@link Query}.
+     */
+    enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="), CONTAINS("~");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    // a node of the parsed expression
+    abstract static class Expr implements Predicate<Pokemon> {}
+
+    static class And extends Expr {
+        final List<Expr> terms;
+
+        And(List<Expr> terms) {
+            this.terms = Collections.unmodifiableList(terms);
+        }
+
+        @Override
+        public boolean test(Pokemon p) {
+            for (Expr term : terms)
+                if (!term.test(p)) return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return terms.stream().map(t -> t instanceof Or ? "(" + t + ")" : t.toString()).collect(Collectors.joining(" AND "));
+        }
+    }
+
+    static class Or extends Expr {
+        final List<Expr> terms;
+
+        Or(List<Expr> terms) {
+            this.terms = Collections.unmodifiableList(terms);
+        }
+
+        @Override
+        public boolean test(Pokemon p) {
+            for (Expr term : terms)
+                if (term.test(p)) return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return terms.stream().map(Expr::toString).collect(Collectors.joining(" OR "));
+        }
+    }
+
+    static class Not extends Expr {
+        final Expr term;
+
+        Not(Expr term) {
+            this.term = term;
+        }
+
+        @Override
+        public boolean test(Pokemon p) {
+            return !term.test(p);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + (term instanceof Comparison || term instanceof Not ? term.toString() : "(" + term + ")");
+        }
+    }
+
+    static class Comparison extends Expr {
+        final Field field;
+        final Op op;
+        final String value;
+        private final String normalized;
+        private final String lowerCase;
+        private final double number;
+
+        Comparison(Field field, Op op, String value, double number) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+            this.normalized = normalize(value);
+            this.lowerCase = value.toLowerCase();
+            this.number = number;
+        }
+
+        @Override
+        public boolean test(Pokemon p) {
+            switch (op) {
+                case EQ:       return matches(p);
+                case NE:       return !matches(p);
+                case CONTAINS: return field.text(p).anyMatch(v -> v.toLowerCase().contains(lowerCase));
+                case LT:       return field.numbers(p).anyMatch(v -> v < number);
+                case LE:       return field.numbers(p).anyMatch(v -> v <= number);
+                case GT:       return field.numbers(p).anyMatch(v -> v > number);
+                default:       return field.numbers(p).anyMatch(v -> v >= number);
+            }
+        }
+
+        private boolean matches(Pokemon p) {
+            return field.isNumeric()
+                ? field.numbers(p).anyMatch(v -> v == number)
+                : field.text(p).anyMatch(v -> normalize(v).equals(normalized));
+        }
+
+        String quotedValue() {
+            return field.isNumeric() ? value : "\"" + value.replace("\"", "\\\"") + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return field + " " + op.symbol + " " + quotedValue();
+        }
+    }
+
+    // a recursive descent parser of the grammar
+    //   or         := and ("OR" and)*
+    //   and        := unary ("AND" unary)*
+    //   unary      := "NOT" unary | "(" or ")" | comparison
+    //   comparison := field op value
+    private static class Parser {
+        private final String query;
+        private int pos;
+
+        Parser(String query) {
+            this.query = query;
+        }
+
+        Expr parse() {
+            Expr tor = or();
+            skipSpaces();
+            if (pos < query.length())
+                throw error("Unexpected \"" + query.charAt(pos) + "\"");
+            return tor;
+        }
+
+        private Expr or() {
+            List<Expr> terms = new ArrayList<>();
+            terms.add(and());
+            while (keyword("OR")) terms.add(and());
+            return terms.size() == 1 ? terms.get(0) : new Or(terms);
+        }
+
+        private Expr and() {
+            List<Expr> terms = new ArrayList<>();
+            terms.add(unary());
+            while (keyword("AND")) terms.add(unary());
+            return terms.size() == 1 ? terms.get(0) : new And(terms);
+        }
+
+        private Expr unary() {
+            if (keyword("NOT")) return new Not(unary());
+            skipSpaces();
+            if (pos < query.length() && query.charAt(pos) == '(') {
+                pos++;
+                Expr tor = or();
+                skipSpaces();
+                if (pos >= query.length() || query.charAt(pos) != ')')
+                    throw error("Expected \")\"");
+                pos++;
+                return tor;
+            }
+            return comparison();
+        }
+
+        private Expr comparison() {
+            skipSpaces();
+            int start = pos;
+            String name = word();
+            if (name.isEmpty()) throw error("Expected a field");
+            Field field = Field.of(name);
+            if (field == null) {
+                pos = start;
+                throw error("Unknown field \"" + name + "\"");
+            }
+            skipSpaces();
+            int opStart = pos;
+            Op op = op();
+            if (op == null) throw error("Expected an operator");
+            if (field.isNumeric() ? op == Op.CONTAINS : op != Op.EQ && op != Op.NE && op != Op.CONTAINS) {
+                pos = opStart;
+                throw error("Operator \"" + op.symbol + "\" cannot be used with " + (field.isNumeric() ? "the number " : "the text ") + field);
+            }
+            skipSpaces();
+            int valueStart = pos;
+            String value = value();
+            double number = Double.NaN;
+            if (field.isNumeric()) {
+                try {
+                    number = Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    pos = valueStart;
+                    throw error("Expected a number for " + field);
+                }
+            }
+            return new Comparison(field, op, value, number);
+        }
+
+        private Op op() {
+            if (pos >= query.length()) return null;
+            char c = query.charAt(pos), next = pos + 1 < query.length() ? query.charAt(pos + 1) : 0;
+            Op tor;
+            switch (c) {
+                case '=': tor = Op.EQ; break;
+                case '~': tor = Op.CONTAINS; break;
+                case '!': tor = next == '=' ? Op.NE : null; break;
+                case '<': tor = next == '=' ? Op.LE : Op.LT; break;
+                case '>': tor = next == '=' ? Op.GE : Op.GT; break;
+                default:  tor = null;
+            }
+            if (tor != null) pos += tor.symbol.length();
+            return tor;
+        }
+
+        private String value() {
+            if (pos < query.length() && query.charAt(pos) == '"') {
+                int start = pos++;
+                StringBuilder tor = new StringBuilder();
+                while (pos < query.length() && query.charAt(pos) != '"') {
+                    char c = query.charAt(pos++);
+                    if (c == '\\' && pos < query.length()) c = query.charAt(pos++);
+                    tor.append(c);
+                }
+                if (pos >= query.length()) {
+                    pos = start;
+                    throw error("Unterminated text");
+                }
+                pos++;
+                return tor.toString();
+            }
+            String tor = word();
+            if (tor.isEmpty()) throw error("Expected a value");
+            return tor;
+        }
+
+        // a field, a keyword, a number or a value which is not quoted
+        private String word() {
+            int start = pos;
+            while (pos < query.length()) {
+                char c = query.charAt(pos);
+                if (!Character.isLetterOrDigit(c) && c != '.' && c != '_' && c != '-' && c != '+') break;
+                pos++;
+            }
+            return query.substring(start, pos);
+        }
+
+        private boolean keyword(String keyword) {
+            skipSpaces();
+            int end = pos + keyword.length();
+            if (end > query.length() || !query.regionMatches(true, pos, keyword, 0, keyword.length())) return false;
+            if (end < query.length() && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '.' || query.charAt(end) == '_'))
+                return false;
+            pos = end;
+            return true;
+        }
+
+        private void skipSpaces() {
+            while (pos < query.length() && Character.isWhitespace(query.charAt(pos))) pos++;
+        }
+
+        private QuerySyntaxException error(String message) {
+            return new QuerySyntaxException(message, query, pos);
+        }
+    }
+}
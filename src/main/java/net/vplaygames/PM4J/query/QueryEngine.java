@@ -0,0 +1,380 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.query;
+
+import net.vplaygames.PM4J.caches.PokemonDataCache;
+import net.vplaygames.PM4J.caches.PokemonSet;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.exceptions.QuerySyntaxException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes {@link Query Queries} over a roster of Pokemon, using indexes instead of checking every Pokemon where it can.
+ * <br>Each query is planned before being executed. A comparison using {@code =} or {@code !=} on an
+ * {@link Field#isIndexed() indexed field} is answered from an index as a {@link PokemonSet}: the names of the Moves,
+ * Passive Skills and Theme Skills from their {@link net.vplaygames.PM4J.caches.Cache Caches}, and the other
+ * indexed fields from indexes built by this engine the first time they are needed. The sets of the comparisons
+ * joined by {@code AND} are intersected starting from the smallest one, which is the most selective, and the other
+ * comparisons are then only checked on the Pokemon left. A query with no indexed comparison checks every Pokemon.
+ * <br>{@link #explain(Query)} executes a query and returns its plan with the estimated and actual number of Pokemon,
+ * and the time taken, at each step. For example:-
+ * <pre><code>
+ *     QueryEngine engine = new QueryEngine();
+ *     List&lt;Pokemon&gt; result = engine.execute("role=Strike AND type=Fire AND move.power&gt;150");
+ *     System.out.println(engine.explain("role=Strike AND grid.passive~\"Crit\""));
+ * </code></pre>
+ * The roster and the indexes are fixed when the engine is constructed, so a new engine should be constructed
+ * after the data is reloaded. The Caches are not thread-safe, so queries using them should not be executed while
+ * the Caches are being modified.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see Query
+ */
+public class QueryEngine {
+    private final List<Pokemon> roster;
+    private final PokemonSet rosterSet = new PokemonSet();
+    private final Map<Field, Map<String, PokemonSet>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new QueryEngine over all the Pokemon in the {@link PokemonDataCache}.
+     */
+    public QueryEngine() {
+        this(PokemonDataCache.getInstance().getAllPokemon());
+    }
+
+    /**
+     * Constructs a new QueryEngine over the given roster.
+     *
+     * @param roster the Pokemon to be queried
+     */
+    public QueryEngine(Collection<Pokemon> roster) {
+        for (Pokemon p : roster)
+            rosterSet.add(p);
+        this.roster = new ArrayList<>(rosterSet);
+    }
+
+    /**
+     * Parses and executes a query.
+     *
+     * @param query the query
+     * @return the Pokemon matching the query, in the order of their {@link Pokemon#id IDs}
+     * @throws QuerySyntaxException if the query is not valid
+     */
+    public List<Pokemon> execute(String query) {
+        return execute(Query.parse(query));
+    }
+
+    /**
+     * Executes a query.
+     *
+     * @param query the query
+     * @return the Pokemon matching the query, in the order of their {@link Pokemon#id IDs}
+     */
+    public List<Pokemon> execute(Query query) {
+        return new ArrayList<>(plan(query.root).run());
+    }
+
+    /**
+     * Parses and executes a query, and returns how it was executed.
+     *
+     * @param query the query
+     * @return the plan of the query, with its result
+     * @throws QuerySyntaxException if the query is not valid
+     */
+    public Explain explain(String query) {
+        return explain(Query.parse(query));
+    }
+
+    /**
+     * Executes a query, and returns how it was executed.
+     *
+     * @param query the query
+     * @return the plan of the query, with its result
+     */
+    public Explain explain(Query query) {
+        long start = System.nanoTime();
+        Plan plan = plan(query.root);
+        long planned = System.nanoTime();
+        List<Pokemon> result = new ArrayList<>(plan.run());
+        return new Explain(query, plan, result, planned - start, System.nanoTime() - planned);
+    }
+
+    /**
+     * Returns the size of the roster.
+     *
+     * @return the size of the roster
+     */
+    public int size() {
+        return roster.size();
+    }
+
+    private Plan plan(Query.Expr root) {
+        Plan tor = planIndexed(root);
+        return tor == null ? new Filter(null, root) : tor;
+    }
+
+    // plans the given expression using the indexes, null if it can not be answered from them
+    private Plan planIndexed(Query.Expr e) {
+        if (e instanceof Query.Comparison) {
+            Query.Comparison c = (Query.Comparison) e;
+            if (!c.field.isIndexed() || c.op != Query.Op.EQ && c.op != Query.Op.NE) return null;
+            Plan lookup = new IndexLookup(c, lookup(c));
+            return c.op == Query.Op.EQ ? lookup : new Complement(lookup);
+        } else if (e instanceof Query.Not) {
+            Plan term = planIndexed(((Query.Not) e).term);
+            return term == null ? null : new Complement(term);
+        } else if (e instanceof Query.Or) {
+            List<Plan> terms = new ArrayList<>();
+            for (Query.Expr term : ((Query.Or) e).terms) {
+                Plan plan = planIndexed(term);
+                if (plan == null) return null;
+                terms.add(plan);
+            }
+            return new Union(terms);
+        }
+        List<Plan> indexed = new ArrayList<>();
+        List<Query.Expr> residual = new ArrayList<>();
+        for (Query.Expr term : ((Query.And) e).terms) {
+            Plan plan = planIndexed(term);
+            if (plan == null) residual.add(term);
+            else indexed.add(plan);
+        }
+        if (indexed.isEmpty()) return null;
+        Plan tor = indexed.size() == 1 ? indexed.get(0) : new Intersect(indexed);
+        if (residual.isEmpty()) return tor;
+        return new Filter(tor, residual.size() == 1 ? residual.get(0) : new Query.And(residual));
+    }
+
+    private PokemonSet lookup(Query.Comparison c) {
+        PokemonSet tor;
+        if (c.field.isCacheIndexed()) {
+            tor = c.field.lookupInCache(c.value);
+        } else {
+            String key = Query.normalize(c.value);
+            if (c.field.isNumeric()) {
+                double number = Double.parseDouble(c.value);
+                key = number == (int) number ? Integer.toString((int) number) : null;
+            }
+            tor = key == null ? null : indexes.computeIfAbsent(c.field, this::buildIndex).get(key);
+        }
+        return tor == null ? new PokemonSet() : tor.and(rosterSet);
+    }
+
+    private Map<String, PokemonSet> buildIndex(Field field) {
+        Map<String, PokemonSet> tor = new HashMap<>();
+        for (Pokemon p : roster)
+            field.text(p).forEach(v -> tor.computeIfAbsent(Query.normalize(v), k -> new PokemonSet()).add(p));
+        return tor;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+
+    // a step of the plan of a query, which gives the Pokemon matching a part of the query
+    private abstract class Plan {
+        final List<Plan> inputs;
+        final int estimate;
+        int rows = -1;
+        long nanos;
+
+        Plan(List<Plan> inputs, int estimate) {
+            this.inputs = inputs;
+            this.estimate = estimate;
+        }
+
+        PokemonSet run() {
+            long start = System.nanoTime();
+            PokemonSet tor = execute();
+            nanos = System.nanoTime() - start;
+            rows = tor.size();
+            return tor;
+        }
+
+        abstract PokemonSet execute();
+
+        abstract String describe();
+
+        void print(StringBuilder out, int depth) {
+            for (int i = 0; i < depth; i++) out.append("  ");
+            out.append(describe()).append("  (estimated ").append(estimate);
+            if (rows != -1) out.append(", actual ").append(rows).append(", ").append(millis(nanos));
+            out.append(")\n");
+            for (Plan input : inputs)
+                input.print(out, depth + 1);
+        }
+    }
+
+    private class IndexLookup extends Plan {
+        private final Query.Comparison comparison;
+        private final PokemonSet set;
+
+        IndexLookup(Query.Comparison comparison, PokemonSet set) {
+            super(Collections.emptyList(), set.size());
+            this.comparison = comparison;
+            this.set = set;
+        }
+
+        @Override
+        PokemonSet execute() {
+            return set;
+        }
+
+        @Override
+        String describe() {
+            Field f = comparison.field;
+            return "Index Lookup on " + (f.isCacheIndexed() ? f.getCacheName() : f.getName() + " index")
+                + ": " + f + " = " + comparison.quotedValue();
+        }
+    }
+
+    private class Complement extends Plan {
+        Complement(Plan input) {
+            super(Collections.singletonList(input), roster.size() - input.estimate);
+        }
+
+        @Override
+        PokemonSet execute() {
+            return rosterSet.andNot(inputs.get(0).run());
+        }
+
+        @Override
+        String describe() {
+            return "Complement";
+        }
+    }
+
+    private class Intersect extends Plan {
+        Intersect(List<Plan> inputs) {
+            super(sorted(inputs), inputs.stream().mapToInt(p -> p.estimate).min().orElse(0));
+        }
+
+        @Override
+        PokemonSet execute() {
+            PokemonSet tor = inputs.get(0).run();
+            for (int i = 1; i < inputs.size() && !tor.isEmpty(); i++)
+                tor = tor.and(inputs.get(i).run());
+            return tor;
+        }
+
+        @Override
+        String describe() {
+            return "Intersect";
+        }
+    }
+
+    private class Union extends Plan {
+        Union(List<Plan> inputs) {
+            super(sorted(inputs), (int) Math.min(roster.size(), inputs.stream().mapToLong(p -> p.estimate).sum()));
+        }
+
+        @Override
+        PokemonSet execute() {
+            PokemonSet tor = new PokemonSet();
+            for (Plan input : inputs)
+                tor = tor.or(input.run());
+            return tor;
+        }
+
+        @Override
+        String describe() {
+            return "Union";
+        }
+    }
+
+    private class Filter extends Plan {
+        private final Query.Expr condition;
+
+        Filter(Plan input, Query.Expr condition) {
+            super(input == null ? Collections.emptyList() : Collections.singletonList(input), input == null ? roster.size() : input.estimate);
+            this.condition = condition;
+        }
+
+        @Override
+        PokemonSet execute() {
+            PokemonSet tor = new PokemonSet();
+            for (Pokemon p : inputs.isEmpty() ? roster : inputs.get(0).run())
+                if (condition.test(p)) tor.add(p);
+            return tor;
+        }
+
+        @Override
+        String describe() {
+            return (inputs.isEmpty() ? "Scan roster, filter: " : "Filter: ") + condition;
+        }
+    }
+
+    private static List<Plan> sorted(List<Plan> plans) {
+        List<Plan> tor = new ArrayList<>(plans);
+        tor.sort(Comparator.comparingInt(p -> p.estimate));
+        return Collections.unmodifiableList(tor);
+    }
+
+    /**
+     * The plan of a {@link Query} executed by a {@link QueryEngine}, with its result.
+     * The plan is a tree of steps, each with the estimated and actual number of Pokemon it gave,
+     * and the time it took including the steps below it.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Explain {
+        /** The query executed. */
+        public final Query query;
+        /** The Pokemon matching the query. */
+        public final List<Pokemon> result;
+        /** The time taken to plan the query, in nanoseconds, including looking up the indexes. */
+        public final long planningNanos;
+        /** The time taken to execute the plan, in nanoseconds. */
+        public final long executionNanos;
+        private final String plan;
+
+        Explain(Query query, QueryEngine.Plan plan, List<Pokemon> result, long planningNanos, long executionNanos) {
+            this.query = query;
+            this.result = Collections.unmodifiableList(result);
+            this.planningNanos = planningNanos;
+            this.executionNanos = executionNanos;
+            StringBuilder out = new StringBuilder();
+            plan.print(out, 0);
+            this.plan = out.toString();
+        }
+
+        /**
+         * Returns the plan of the query, one step per line, with the steps giving Pokemon to a step indented below it.
+         *
+         * @return the plan of the query
+         */
+        public String getPlan() {
+            return plan;
+        }
+
+        @Override
+        public String toString() {
+            return "Query: " + query + "\n" + plan
+                + "Planning: " + millis(planningNanos) + ", Execution: " + millis(executionNanos) + ", Rows: " + result.size();
+        }
+    }
+}
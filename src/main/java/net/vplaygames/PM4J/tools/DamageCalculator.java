@@ -0,0 +1,278 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.Stats;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the damage dealt by the moves of Sync Pairs to other Sync Pairs, in batch.
+ * <br>The damage of a move is estimated as
+ * <pre><code>maxPower * offense / defense * weakness * attackModifier / defenseModifier</code></pre>
+ * where {@code offense} and {@code defense} are the max Attack and Defense stats for physical moves
+ * and the max Sp. Atk and Sp. Def stats for special moves, {@code weakness} is 2 if the type of the move
+ * is the weakness of the defender and 1 otherwise, and the modifiers are the ones given to the constructor
+ * (1 by default), which can be used to account for theme skills, passives or buffs.
+ * Moves which are neither physical nor special, or have no power, deal no damage.
+ * <br>The data of the roster is copied into primitive arrays once, and the modifiers are
+ * evaluated only once per Pokemon, so the matrices are computed without touching the entities again.
+ * For example:-
+ * <pre><code>
+ *     DamageCalculator calc = new DamageCalculator(PokemonDataCache.getInstance().getAllPokemon());
+ *     DamageCalculator.Table table = calc.bestMoves();
+ *     String move = table.getBestMove(calc.indexOf(attacker), calc.indexOf(defender));
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class DamageCalculator {
+    private static final byte STATUS = 0, PHYSICAL = 1, SPECIAL = 2;
+    private final Pokemon[] roster;
+    private final Map<Pokemon, Integer> indices = new IdentityHashMap<>();
+    // per attacker, offense already multiplied by the attack modifier
+    private final double[] atk, spAtk;
+    // per defender, the inverse of the defense already multiplied by the defense modifier
+    private final double[] invDef, invSpDef;
+    private final int[] weakness;
+    // the moves of attacker i are moveStart[i] until moveStart[i + 1]
+    private final int[] moveStart;
+    private final String[] moveName;
+    private final int[] movePower;
+    private final byte[] moveCategory;
+    private final int[] moveType;
+
+    /**
+     * Constructs a new DamageCalculator over the given roster, without any modifiers.
+     *
+     * @param roster the Pokemon to compute the damage between
+     */
+    public DamageCalculator(Collection<Pokemon> roster) {
+        this(roster, p -> 1, p -> 1);
+    }
+
+    /**
+     * Constructs a new DamageCalculator over the given roster.
+     *
+     * @param roster          the Pokemon to compute the damage between
+     * @param attackModifier  the multiplier of the damage dealt by each Pokemon, evaluated once per Pokemon
+     * @param defenseModifier the divisor of the damage taken by each Pokemon, evaluated once per Pokemon
+     */
+    public DamageCalculator(Collection<Pokemon> roster,
+                            ToDoubleFunction<Pokemon> attackModifier,
+                            ToDoubleFunction<Pokemon> defenseModifier) {
+        this.roster = roster.toArray(new Pokemon[0]);
+        int n = this.roster.length;
+        atk = new double[n];
+        spAtk = new double[n];
+        invDef = new double[n];
+        invSpDef = new double[n];
+        weakness = new int[n];
+        moveStart = new int[n + 1];
+        int moves = 0;
+        for (Pokemon p : this.roster)
+            moves += p.moves.size() + (p.syncMove == null ? 0 : 1);
+        moveName = new String[moves];
+        movePower = new int[moves];
+        moveCategory = new byte[moves];
+        moveType = new int[moves];
+        Map<String, Integer> types = new HashMap<>();
+        for (int i = 0, m = 0; i < n; i++) {
+            Pokemon p = this.roster[i];
+            indices.put(p, i);
+            Stats max = p.stats.max;
+            double attack = attackModifier.applyAsDouble(p);
+            double defense = defenseModifier.applyAsDouble(p);
+            atk[i] = max.atk * attack;
+            spAtk[i] = max.spAtk * attack;
+            invDef[i] = max.def == 0 ? 0 : 1 / (max.def * defense);
+            invSpDef[i] = max.spDef == 0 ? 0 : 1 / (max.spDef * defense);
+            weakness[i] = typeId(types, p.weakness);
+            moveStart[i] = m;
+            for (Move move : p.moves) {
+                moveName[m] = move.name;
+                movePower[m] = move.getMaxPower();
+                moveCategory[m] = category(move.category);
+                moveType[m++] = typeId(types, move.type);
+            }
+            if (p.syncMove != null) {
+                moveName[m] = p.syncMove.name;
+                movePower[m] = p.syncMove.getMaxPower();
+                moveCategory[m] = category(p.syncMove.category);
+                moveType[m++] = typeId(types, p.syncMove.type);
+            }
+        }
+        moveStart[n] = moves;
+    }
+
+    private static int typeId(Map<String, Integer> types, String type) {
+        if (type == null || type.isEmpty()) return -1;
+        return types.computeIfAbsent(type.toLowerCase(), k -> types.size());
+    }
+
+    private static byte category(String category) {
+        if (category == null) return STATUS;
+        String c = category.toLowerCase();
+        return c.contains("physical") ? PHYSICAL : c.contains("special") ? SPECIAL : STATUS;
+    }
+
+    /**
+     * Returns the Pokemon at the given index of the roster.
+     *
+     * @param index the index in the roster
+     * @return the Pokemon at the given index
+     */
+    public Pokemon getPokemon(int index) {
+        return roster[index];
+    }
+
+    /**
+     * Returns the index of the given Pokemon in the roster.
+     *
+     * @param pokemon the Pokemon
+     * @return the index of the given Pokemon, -1 if it is not in the roster
+     */
+    public int indexOf(Pokemon pokemon) {
+        return indices.getOrDefault(pokemon, -1);
+    }
+
+    /**
+     * Returns the size of the roster.
+     *
+     * @return the size of the roster
+     */
+    public int size() {
+        return roster.length;
+    }
+
+    /**
+     * Returns the estimated damage of each move of the attacker (its Sync Move being the last one) to the defender.
+     *
+     * @param attacker the index of the attacker in the roster
+     * @param defender the index of the defender in the roster
+     * @return the estimated damage of each move of the attacker
+     */
+    public double[] damage(int attacker, int defender) {
+        double[] tor = new double[moveStart[attacker + 1] - moveStart[attacker]];
+        for (int m = moveStart[attacker]; m < moveStart[attacker + 1]; m++)
+            tor[m - moveStart[attacker]] = damage(attacker, m, defender);
+        return tor;
+    }
+
+    private double damage(int attacker, int move, int defender) {
+        double tor;
+        switch (moveCategory[move]) {
+            case PHYSICAL: tor = movePower[move] * atk[attacker] * invDef[defender]; break;
+            case SPECIAL:  tor = movePower[move] * spAtk[attacker] * invSpDef[defender]; break;
+            default:       return 0;
+        }
+        return moveType[move] != -1 && moveType[move] == weakness[defender] ? 2 * tor : tor;
+    }
+
+    /**
+     * Computes the best move of every Pokemon of the roster against every Pokemon of the roster, in parallel.
+     *
+     * @return the best move of every Pokemon against every Pokemon
+     */
+    public Table bestMoves() {
+        int n = roster.length;
+        int[] best = new int[n * n];
+        float[] damage = new float[n * n];
+        IntStream.range(0, n).parallel().forEach(a -> {
+            int from = moveStart[a], to = moveStart[a + 1];
+            for (int d = 0; d < n; d++) {
+                int bestMove = -1;
+                double bestDamage = 0;
+                for (int m = from; m < to; m++) {
+                    double dmg = damage(a, m, d);
+                    if (dmg > bestDamage) {
+                        bestDamage = dmg;
+                        bestMove = m;
+                    }
+                }
+                best[a * n + d] = bestMove;
+                damage[a * n + d] = (float) bestDamage;
+            }
+        });
+        return new Table(best, damage);
+    }
+
+    /**
+     * The best move of every Pokemon of the roster of a {@link DamageCalculator} against every Pokemon of the roster,
+     * stored in flat primitive arrays.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public class Table {
+        private final int[] best;
+        private final float[] damage;
+
+        Table(int[] best, float[] damage) {
+            this.best = best;
+            this.damage = damage;
+        }
+
+        /**
+         * Returns the name of the best move of the attacker against the defender.
+         *
+         * @param attacker the index of the attacker in the roster
+         * @param defender the index of the defender in the roster
+         * @return the name of the best move, {@code null} if none of the moves of the attacker deal damage
+         */
+        public String getBestMove(int attacker, int defender) {
+            int move = best[attacker * roster.length + defender];
+            return move == -1 ? null : moveName[move];
+        }
+
+        /**
+         * Returns the estimated damage of the best move of the attacker against the defender.
+         *
+         * @param attacker the index of the attacker in the roster
+         * @param defender the index of the defender in the roster
+         * @return the estimated damage of the best move, 0 if none of the moves of the attacker deal damage
+         */
+        public float getDamage(int attacker, int defender) {
+            return damage[attacker * roster.length + defender];
+        }
+
+        /**
+         * Returns the index of the defender which takes the most damage from the best move of the attacker.
+         *
+         * @param attacker the index of the attacker in the roster
+         * @return the index of the defender, -1 if none of the moves of the attacker deal damage
+         */
+        public int getBestTarget(int attacker) {
+            int n = roster.length, tor = -1;
+            float max = 0;
+            for (int d = 0; d < n; d++) {
+                if (damage[attacker * n + d] > max) {
+                    max = damage[attacker * n + d];
+                    tor = d;
+                }
+            }
+            return tor;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.SyncTile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Finds the Sync Grid build of a Pokemon which has the highest total score
+ * without exceeding an energy budget, an optional Sync Orb budget and a Sync Move level.
+ * The score of each tile is given by a pluggable function and the score of a build is the sum of the scores of its tiles.
+ * <br>The build is found exactly, using dynamic programming over the tiles and the budgets (0/1 knapsack),
+ * so the time taken grows with the number of tiles multiplied by the budgets.
+ * The builds are cached per Pokemon and budget, so repeated queries are answered without computing them again.
+ * The cached builds of a Pokemon are released when the Pokemon is no longer referenced, for example after reloading the data.
+ * For example:-
+ * <pre><code>
+ *     GridOptimizer optimizer = new GridOptimizer(tile -&gt; tile.bonus.contains("Attack") ? 2 : 1);
+ *     GridOptimizer.Build build = optimizer.optimize(pokemon, 60);
+ * </code></pre>
+ * Sync Grids do not only require the energy of the tiles but also that the tiles are connected,
+ * which is not considered here.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class GridOptimizer {
+    /** The maximum Sync Move level. */
+    public static final int MAX_SYNC_LEVEL = 5;
+    private final ToDoubleFunction<SyncTile> score;
+    private final Map<Pokemon, Map<Key, Build>> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Constructs a new GridOptimizer.
+     *
+     * @param score gives the score of each tile, tiles with a score of 0 or less are never picked
+     */
+    public GridOptimizer(ToDoubleFunction<SyncTile> score) {
+        this.score = Objects.requireNonNull(score);
+    }
+
+    /**
+     * Finds the best build of the given Pokemon at the maximum Sync Move level and without limiting the Sync Orbs.
+     *
+     * @param pokemon      the Pokemon whose Sync Grid is to be used
+     * @param energyBudget the maximum energy the build can use
+     * @return the best build
+     */
+    public Build optimize(Pokemon pokemon, int energyBudget) {
+        return optimize(pokemon, energyBudget, Integer.MAX_VALUE, MAX_SYNC_LEVEL);
+    }
+
+    /**
+     * Finds the best build of the given Pokemon.
+     *
+     * @param pokemon      the Pokemon whose Sync Grid is to be used
+     * @param energyBudget the maximum energy the build can use
+     * @param orbBudget    the maximum amount of Sync Orbs the build can use, {@link Integer#MAX_VALUE} for no limit
+     * @param syncLevel    the Sync Move level of the Sync Pair, tiles requiring a higher level are not picked
+     * @return the best build
+     * @throws IllegalArgumentException if any of the budgets is negative,
+     *                                  or the budgets the tiles can use are too large to be searched
+     */
+    public Build optimize(Pokemon pokemon, int energyBudget, int orbBudget, int syncLevel) {
+        if (energyBudget < 0 || orbBudget < 0)
+            throw new IllegalArgumentException("The budgets cannot be negative!");
+        return cache.computeIfAbsent(pokemon, p -> new ConcurrentHashMap<>())
+            .computeIfAbsent(new Key(energyBudget, orbBudget, syncLevel), k -> solve(pokemon.grid, k));
+    }
+
+    /**
+     * Removes all the cached builds.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private Build solve(List<SyncTile> grid, Key key) {
+        List<SyncTile> tiles = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        long totalEnergy = 0, totalOrbs = 0;
+        for (SyncTile tile : grid) {
+            double s = score.applyAsDouble(tile);
+            if (s > 0 && tile.reqSyncLevel <= key.syncLevel && tile.energyCost <= key.energy && tile.syncOrbCost <= key.orbs) {
+                tiles.add(tile);
+                scores.add(s);
+                totalEnergy += tile.energyCost;
+                totalOrbs += tile.syncOrbCost;
+            }
+        }
+        // the candidates can not use more energy than they cost together,
+        // and the orbs only need to be tracked if all of them can not be afforded together
+        int budget = (int) Math.max(0, Math.min(key.energy, totalEnergy));
+        int orbs = totalOrbs <= key.orbs ? 0 : key.orbs;
+        long size = (budget + 1L) * (orbs + 1L);
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("The budgets are too large to be searched: " + size + " cells!");
+        int width = orbs + 1, cells = (int) size, n = tiles.size();
+        double[] best = new double[cells];
+        boolean[][] taken = new boolean[n][];
+        for (int i = 0; i < n; i++) {
+            SyncTile tile = tiles.get(i);
+            int e = tile.energyCost, o = orbs == 0 ? 0 : tile.syncOrbCost;
+            double s = scores.get(i);
+            taken[i] = new boolean[cells];
+            for (int energy = budget; energy >= e; energy--) {
+                for (int orb = orbs; orb >= o; orb--) {
+                    int cell = energy * width + orb, from = (energy - e) * width + orb - o;
+                    if (best[from] + s > best[cell]) {
+                        best[cell] = best[from] + s;
+                        taken[i][cell] = true;
+                    }
+                }
+            }
+        }
+        List<SyncTile> picked = new ArrayList<>();
+        int energy = budget, orb = orbs;
+        for (int i = n - 1; i >= 0; i--) {
+            if (taken[i][energy * width + orb]) {
+                SyncTile tile = tiles.get(i);
+                picked.add(tile);
+                energy -= tile.energyCost;
+                orb -= orbs == 0 ? 0 : tile.syncOrbCost;
+            }
+        }
+        Collections.reverse(picked);
+        return new Build(picked, cells == 0 ? 0 : best[cells - 1]);
+    }
+
+    private static class Key {
+        final int energy, orbs, syncLevel;
+
+        Key(int energy, int orbs, int syncLevel) {
+            this.energy = energy;
+            this.orbs = orbs;
+            this.syncLevel = syncLevel;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return energy == k.energy && orbs == k.orbs && syncLevel == k.syncLevel;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(energy, orbs, syncLevel);
+        }
+    }
+
+    /**
+     * A set of tiles of a Sync Grid picked by a {@link GridOptimizer}.
+     * <br>All of this class's variables are {@code public final} i.e. available without the use of getters
+     * but not assignable.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Build {
+        /** The tiles picked, in the order of the Sync Grid. */
+        public final List<SyncTile> tiles;
+        /** The total score of the tiles picked. */
+        public final double score;
+        /** The total energy required by the tiles picked. */
+        public final int energyCost;
+        /** The total amount of Sync Orbs required by the tiles picked. */
+        public final int syncOrbCost;
+
+        Build(List<SyncTile> tiles, double score) {
+            this.tiles = Collections.unmodifiableList(tiles);
+            this.score = score;
+            this.energyCost = tiles.stream().mapToInt(t -> t.energyCost).sum();
+            this.syncOrbCost = tiles.stream().mapToInt(t -> t.syncOrbCost).sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Build{score=" + score + ", energy=" + energyCost + ", orbs=" + syncOrbCost + ", tiles=" + tiles + "}";
+        }
+    }
+}
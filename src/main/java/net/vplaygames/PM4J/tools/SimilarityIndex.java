@@ -0,0 +1,499 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.Stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the Pokemon most similar to a Pokemon, using a numeric feature vector of each Pokemon.
+ * <br>The vector of a Pokemon is made of these groups of features:-
+ * <ul>
+ *     <li>its max Stats, each standardized over the roster</li>
+ *     <li>its types</li>
+ *     <li>its role</li>
+ *     <li>the highest max power of its Moves, Sync Move included, of each type, relative to the highest in the roster</li>
+ *     <li>the {@link Passive#family families} of its inbuilt Passive Skills</li>
+ * </ul>
+ * Each group is scaled to a length of 1 and then multiplied by its {@link Weights weight},
+ * so that a group does not matter more just because it has more features.
+ * <br>The vectors are stored one after the other in a single {@code float} array with their squared lengths,
+ * so a query is a scan over that array computing one dot product, or one squared distance, per Pokemon,
+ * which keeps the best {@code k} Pokemon in a heap. The distance is summed from the differences of the features,
+ * not derived from the dot product, so Pokemon with nearly the same vectors are still told apart. Large rosters are scanned in parallel. For example:-
+ * <pre><code>
+ *     SimilarityIndex index = new SimilarityIndex(PokemonDataCache.getInstance().getAllPokemon());
+ *     List&lt;SimilarityIndex.Match&gt; similar = index.nearest(pokemon, 5, SimilarityIndex.Metric.COSINE);
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class SimilarityIndex {
+    // the amount of floats above which the roster is scanned in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK = 256;
+    private final Pokemon[] roster;
+    private final Map<Pokemon, Integer> indices = new IdentityHashMap<>();
+    private final List<String> features;
+    private final int dimensions;
+    // the vector of Pokemon i is vectors[i * dimensions] until vectors[(i + 1) * dimensions]
+    private final float[] vectors;
+    private final float[] squaredNorms;
+    private boolean parallel = true;
+
+    /**
+     * Constructs a new SimilarityIndex over the given roster, with all the groups of features weighing the same.
+     *
+     * @param roster the Pokemon to be indexed
+     */
+    public SimilarityIndex(Collection<Pokemon> roster) {
+        this(roster, new Weights());
+    }
+
+    /**
+     * Constructs a new SimilarityIndex over the given roster.
+     *
+     * @param roster  the Pokemon to be indexed
+     * @param weights the weights of the groups of features
+     */
+    public SimilarityIndex(Collection<Pokemon> roster, Weights weights) {
+        this.roster = roster.toArray(new Pokemon[0]);
+        int n = this.roster.length;
+        for (int i = 0; i < n; i++)
+            indices.put(this.roster[i], i);
+        Map<String, Integer> types = new LinkedHashMap<>(), roles = new LinkedHashMap<>(), moveTypes = new LinkedHashMap<>(), families = new LinkedHashMap<>();
+        int maxPower = 1;
+        for (Pokemon p : this.roster) {
+            for (String type : p.typing) id(types, type);
+            id(roles, p.role);
+            for (Move m : p.moves) {
+                id(moveTypes, m.type);
+                maxPower = Math.max(maxPower, m.getMaxPower());
+            }
+            if (p.syncMove != null) {
+                id(moveTypes, p.syncMove.type);
+                maxPower = Math.max(maxPower, p.syncMove.getMaxPower());
+            }
+            for (Passive s : p.passives) id(families, s.family);
+        }
+        List<String> names = new ArrayList<>(Arrays.asList("stats.hp", "stats.atk", "stats.def", "stats.spAtk", "stats.spDef", "stats.speed"));
+        types.keySet().forEach(t -> names.add("type:" + t));
+        roles.keySet().forEach(r -> names.add("role:" + r));
+        moveTypes.keySet().forEach(t -> names.add("move.power:" + t));
+        families.keySet().forEach(f -> names.add("passive:" + f));
+        features = Collections.unmodifiableList(names);
+        dimensions = names.size();
+        int typeStart = 6, roleStart = typeStart + types.size(), moveStart = roleStart + roles.size(), familyStart = moveStart + moveTypes.size();
+        vectors = new float[n * dimensions];
+        squaredNorms = new float[n];
+        double[] mean = new double[6], deviation = new double[6];
+        for (Pokemon p : this.roster) {
+            int[] s = stats(p.stats.max);
+            for (int j = 0; j < 6; j++) mean[j] += s[j] / (double) n;
+        }
+        for (Pokemon p : this.roster) {
+            int[] s = stats(p.stats.max);
+            for (int j = 0; j < 6; j++) deviation[j] += (s[j] - mean[j]) * (s[j] - mean[j]) / n;
+        }
+        for (int j = 0; j < 6; j++) deviation[j] = Math.sqrt(deviation[j]);
+        for (int i = 0; i < n; i++) {
+            Pokemon p = this.roster[i];
+            int base = i * dimensions;
+            int[] s = stats(p.stats.max);
+            for (int j = 0; j < 6; j++)
+                vectors[base + j] = deviation[j] == 0 ? 0 : (float) ((s[j] - mean[j]) / deviation[j]);
+            for (String type : p.typing) vectors[base + typeStart + types.get(key(type))] = 1;
+            vectors[base + roleStart + roles.get(key(p.role))] = 1;
+            for (Move m : p.moves) power(base + moveStart + moveTypes.get(key(m.type)), m.getMaxPower() / (float) maxPower);
+            if (p.syncMove != null)
+                power(base + moveStart + moveTypes.get(key(p.syncMove.type)), p.syncMove.getMaxPower() / (float) maxPower);
+            for (Passive passive : p.passives) vectors[base + familyStart + families.get(key(passive.family))] = 1;
+            scale(base, base + typeStart, weights.stats);
+            scale(base + typeStart, base + roleStart, weights.typing);
+            scale(base + roleStart, base + moveStart, weights.role);
+            scale(base + moveStart, base + familyStart, weights.moves);
+            scale(base + familyStart, base + dimensions, weights.passives);
+            squaredNorms[i] = dot(vectors, base, vectors, base, dimensions);
+        }
+    }
+
+    private static int id(Map<String, Integer> ids, String value) {
+        return ids.computeIfAbsent(key(value), k -> ids.size());
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+
+    private static int[] stats(Stats s) {
+        return new int[]{s.hp, s.atk, s.def, s.spAtk, s.spDef, s.speed};
+    }
+
+    private void power(int index, float power) {
+        vectors[index] = Math.max(vectors[index], power);
+    }
+
+    // scales the features from start until end to the given length, unless they are all 0
+    private void scale(int start, int end, float length) {
+        float norm = (float) Math.sqrt(dot(vectors, start, vectors, start, end - start));
+        if (norm == 0) return;
+        for (int i = start; i < end; i++)
+            vectors[i] *= length / norm;
+    }
+
+    // four accumulators, so the additions do not wait for each other
+    private static float dot(float[] a, int aStart, float[] b, int bStart, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aStart + i] * b[bStart + i];
+            s1 += a[aStart + i + 1] * b[bStart + i + 1];
+            s2 += a[aStart + i + 2] * b[bStart + i + 2];
+            s3 += a[aStart + i + 3] * b[bStart + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aStart + i] * b[bStart + i];
+        return s0 + s1 + s2 + s3;
+    }
+
+    // the squared euclidean distance, from the differences, as |a|^2 + |b|^2 - 2a.b cancels out for close vectors
+    private static float squaredDistance(float[] a, int aStart, float[] b, int bStart, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            float d0 = a[aStart + i] - b[bStart + i];
+            float d1 = a[aStart + i + 1] - b[bStart + i + 1];
+            float d2 = a[aStart + i + 2] - b[bStart + i + 2];
+            float d3 = a[aStart + i + 3] - b[bStart + i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            float d = a[aStart + i] - b[bStart + i];
+            s0 += d * d;
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Sets whether large rosters are scanned in parallel, which is the default.
+     *
+     * @param parallel whether large rosters are scanned in parallel
+     * @return this instance, useful for chaining.
+     */
+    public SimilarityIndex setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Returns the Pokemon most similar to the given Pokemon, not including the Pokemon itself.
+     *
+     * @param pokemon the Pokemon
+     * @param k       the maximum amount of Pokemon to return
+     * @param metric  the metric of similarity
+     * @return the Pokemon most similar to the given Pokemon, the most similar first
+     * @throws IllegalArgumentException if the given Pokemon is not in the roster
+     */
+    public List<Match> nearest(Pokemon pokemon, int k, Metric metric) {
+        int index = indexOf(pokemon);
+        if (index == -1) throw new IllegalArgumentException(pokemon + " is not in the roster!");
+        return nearest(vectors, index * dimensions, squaredNorms[index], k, metric, index);
+    }
+
+    /**
+     * Returns the Pokemon most similar to the given feature vector.
+     *
+     * @param vector the feature vector, as returned by {@link #getVector(Pokemon)}
+     * @param k      the maximum amount of Pokemon to return
+     * @param metric the metric of similarity
+     * @return the Pokemon most similar to the given vector, the most similar first
+     * @throws IllegalArgumentException if the length of the vector is not {@link #dimensions()}
+     */
+    public List<Match> nearest(float[] vector, int k, Metric metric) {
+        if (vector.length != dimensions)
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " features, got " + vector.length + "!");
+        return nearest(vector, 0, dot(vector, 0, vector, 0, dimensions), k, metric, -1);
+    }
+
+    private List<Match> nearest(float[] query, int start, float squaredNorm, int k, Metric metric, int exclude) {
+        int n = roster.length;
+        if (k <= 0 || n == 0) return Collections.emptyList();
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        IntStream stream = IntStream.range(0, chunks);
+        if (parallel && chunks > 1 && (long) n * dimensions >= PARALLEL_THRESHOLD) stream = stream.parallel();
+        TopK tor = stream.mapToObj(c -> {
+            TopK top = new TopK(k);
+            for (int i = c * CHUNK, end = Math.min(n, i + CHUNK); i < end; i++)
+                if (i != exclude) top.offer(i, score(query, start, squaredNorm, i, metric));
+            return top;
+        }).reduce(TopK::merge).orElseGet(() -> new TopK(k));
+        return tor.toMatches(metric);
+    }
+
+    // higher is more similar, the negative squared distance for EUCLIDEAN
+    private float score(float[] query, int start, float squaredNorm, int i, Metric metric) {
+        if (metric == Metric.EUCLIDEAN)
+            return -squaredDistance(query, start, vectors, i * dimensions, dimensions);
+        float dot = dot(query, start, vectors, i * dimensions, dimensions);
+        float norms = (float) Math.sqrt((double) squaredNorm * squaredNorms[i]);
+        return norms == 0 ? 0 : dot / norms;
+    }
+
+    /**
+     * Returns a copy of the feature vector of the given Pokemon.
+     *
+     * @param pokemon the Pokemon
+     * @return the feature vector of the given Pokemon, {@code null} if it is not in the roster
+     */
+    public float[] getVector(Pokemon pokemon) {
+        int index = indexOf(pokemon);
+        return index == -1 ? null : Arrays.copyOfRange(vectors, index * dimensions, (index + 1) * dimensions);
+    }
+
+    /**
+     * Returns the names of the features, in the order of the feature vectors.
+     *
+     * @return the names of the features
+     */
+    public List<String> getFeatureNames() {
+        return features;
+    }
+
+    /**
+     * Returns the amount of features in each feature vector.
+     *
+     * @return the amount of features
+     */
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the index of the given Pokemon in the roster.
+     *
+     * @param pokemon the Pokemon
+     * @return the index of the given Pokemon, -1 if it is not in the roster
+     */
+    public int indexOf(Pokemon pokemon) {
+        return indices.getOrDefault(pokemon, -1);
+    }
+
+    /**
+     * Returns the size of the roster.
+     *
+     * @return the size of the roster
+     */
+    public int size() {
+        return roster.length;
+    }
+
+    // the k best scores seen, in a min-heap so the worst of them is replaced first
+    private class TopK {
+        final int[] ids;
+        final float[] scores;
+        int size;
+
+        TopK(int k) {
+            ids = new int[Math.min(k, roster.length)];
+            scores = new float[ids.length];
+        }
+
+        void offer(int id, float score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                up(size++);
+            } else if (size > 0 && worse(ids[0], scores[0], id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++)
+                offer(other.ids[i], other.scores[i]);
+            return this;
+        }
+
+        // ties are broken by the index in the roster, so the result does not depend on the order of the scan
+        private boolean worse(int a, float aScore, int b, float bScore) {
+            return aScore < bScore || aScore == bScore && a > b;
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(ids[i], scores[i], ids[parent], scores[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, worst = i;
+                if (left < size && worse(ids[left], scores[left], ids[worst], scores[worst])) worst = left;
+                if (right < size && worse(ids[right], scores[right], ids[worst], scores[worst])) worst = right;
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+
+        List<Match> toMatches(Metric metric) {
+            List<Match> tor = new ArrayList<>(size);
+            while (size > 0) {
+                int id = ids[0];
+                float score = scores[0];
+                swap(0, --size);
+                down(0);
+                tor.add(new Match(roster[id], id, metric == Metric.COSINE ? score : (float) Math.sqrt(-score)));
+            }
+            Collections.reverse(tor);
+            return tor;
+        }
+    }
+
+    /**
+     * The metrics of similarity of a {@link SimilarityIndex}.
+     */
+    public enum Metric {
+        /** The cosine of the angle between the feature vectors, from -1 to 1, higher being more similar. */
+        COSINE,
+        /** The euclidean distance between the feature vectors, lower being more similar. */
+        EUCLIDEAN
+    }
+
+    /**
+     * The weights of the groups of features of a {@link SimilarityIndex}, each being 1 by default.
+     * A group with a weight of 0 is ignored.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Weights {
+        float stats = 1, typing = 1, role = 1, moves = 1, passives = 1;
+
+        /**
+         * Sets the weight of the max Stats.
+         *
+         * @param weight the weight
+         * @return this instance, useful for chaining.
+         */
+        public Weights stats(float weight) {
+            this.stats = weight;
+            return this;
+        }
+
+        /**
+         * Sets the weight of the types.
+         *
+         * @param weight the weight
+         * @return this instance, useful for chaining.
+         */
+        public Weights typing(float weight) {
+            this.typing = weight;
+            return this;
+        }
+
+        /**
+         * Sets the weight of the role.
+         *
+         * @param weight the weight
+         * @return this instance, useful for chaining.
+         */
+        public Weights role(float weight) {
+            this.role = weight;
+            return this;
+        }
+
+        /**
+         * Sets the weight of the powers of the Moves by type.
+         *
+         * @param weight the weight
+         * @return this instance, useful for chaining.
+         */
+        public Weights moves(float weight) {
+            this.moves = weight;
+            return this;
+        }
+
+        /**
+         * Sets the weight of the families of the Passive Skills.
+         *
+         * @param weight the weight
+         * @return this instance, useful for chaining.
+         */
+        public Weights passives(float weight) {
+            this.passives = weight;
+            return this;
+        }
+    }
+
+    /**
+     * A Pokemon found by a {@link SimilarityIndex}.
+     * <br>All of this class's variables are {@code public final} i.e. available without the use of getters
+     * but not assignable.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Match {
+        /** The Pokemon found. */
+        public final Pokemon pokemon;
+        /** The index of the Pokemon in the roster. */
+        public final int index;
+        /** The cosine similarity or the euclidean distance, depending on the {@link Metric} used. */
+        public final float score;
+
+        Match(Pokemon pokemon, int index, float score) {
+            this.pokemon = pokemon;
+            this.index = index;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{pokemon=" + pokemon + ", score=" + score + "}";
+        }
+    }
+}
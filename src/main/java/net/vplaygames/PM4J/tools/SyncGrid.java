@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.SyncTile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The Sync Grid of a Pokemon modelled as a graph of hexagonal tiles.
+ * <br>The position of each tile is packed into a single {@code int} and the positions are treated as
+ * axial hexagonal coordinates, so the neighbours of {@code [x,y]} are {@code [x+1,y]}, {@code [x-1,y]},
+ * {@code [x,y+1]}, {@code [x,y-1]}, {@code [x+1,y-1]} and {@code [x-1,y+1]}. The grid starts from the Sync Move tile at {@code [0,0]},
+ * and a tile can only be unlocked once one of its neighbours has been unlocked.
+ * <br>The adjacency of the tiles and the minimum energy required to unlock each tile are computed once,
+ * when the grid is constructed, so all the queries are answered from those tables.
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ * @see SyncGridIndex
+ */
+public class SyncGrid {
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, -1}, {-1, 1}};
+    /** The Pokemon whose Sync Grid this is. */
+    public final Pokemon pokemon;
+    private final SyncTile[] tiles;
+    private final int[] positions;
+    private final Map<Integer, Integer> indices = new HashMap<>();
+    // the neighbours of tile i are adjacency[adjacencyStart[i]] until adjacency[adjacencyStart[i + 1]]
+    private final int[] adjacencyStart;
+    private final int[] adjacency;
+    private final int[] unlockCost;
+    private final int[] previous;
+    // the tiles sorted by their unlock cost, with the costs in the same order
+    private final int[] byCost;
+    private final int[] sortedCosts;
+
+    /**
+     * Constructs the Sync Grid of the given Pokemon.
+     *
+     * @param pokemon the Pokemon whose Sync Grid is to be modelled
+     */
+    public SyncGrid(Pokemon pokemon) {
+        this.pokemon = pokemon;
+        this.tiles = pokemon.grid.toArray(new SyncTile[0]);
+        int n = tiles.length;
+        positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = pack(tiles[i].gridPosX, tiles[i].gridPosY);
+            indices.putIfAbsent(positions[i], i);
+        }
+        adjacencyStart = new int[n + 1];
+        List<Integer> edges = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            adjacencyStart[i] = edges.size();
+            for (int[] d : DIRECTIONS) {
+                Integer neighbour = indices.get(pack(tiles[i].gridPosX + d[0], tiles[i].gridPosY + d[1]));
+                if (neighbour != null) edges.add(neighbour);
+            }
+        }
+        adjacencyStart[n] = edges.size();
+        adjacency = edges.stream().mapToInt(Integer::intValue).toArray();
+        unlockCost = new int[n];
+        previous = new int[n];
+        computeUnlockCosts();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(unlockCost[a], unlockCost[b]));
+        byCost = new int[n];
+        sortedCosts = new int[n];
+        for (int i = 0; i < n; i++) {
+            byCost[i] = order[i];
+            sortedCosts[i] = unlockCost[order[i]];
+        }
+    }
+
+    // Dijkstra from the Sync Move tile, where the weight of entering a tile is its energy cost
+    private void computeUnlockCosts() {
+        Arrays.fill(unlockCost, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < tiles.length; i++) {
+            if (isStart(tiles[i])) {
+                unlockCost[i] = tiles[i].energyCost;
+                queue.add(new long[]{unlockCost[i], i});
+            }
+        }
+        while (!queue.isEmpty()) {
+            long[] head = queue.poll();
+            int tile = (int) head[1];
+            if (head[0] > unlockCost[tile]) continue;
+            for (int e = adjacencyStart[tile]; e < adjacencyStart[tile + 1]; e++) {
+                int next = adjacency[e];
+                int cost = unlockCost[tile] + tiles[next].energyCost;
+                if (cost < unlockCost[next]) {
+                    unlockCost[next] = cost;
+                    previous[next] = tile;
+                    queue.add(new long[]{cost, next});
+                }
+            }
+        }
+    }
+
+    private static boolean isStart(SyncTile tile) {
+        int x = tile.gridPosX, y = tile.gridPosY;
+        if (x == 0 && y == 0) return true;
+        for (int[] d : DIRECTIONS)
+            if (x == d[0] && y == d[1]) return true;
+        return false;
+    }
+
+    /**
+     * Packs the given position into a single {@code int}.
+     *
+     * @param x the X position
+     * @param y the Y position
+     * @return the packed position
+     */
+    public static int pack(int x, int y) {
+        return x << 16 | y & 0xFFFF;
+    }
+
+    /**
+     * Returns the amount of tiles in this grid.
+     *
+     * @return the amount of tiles in this grid
+     */
+    public int size() {
+        return tiles.length;
+    }
+
+    /**
+     * Returns the tile at the given index.
+     *
+     * @param index the index of the tile, as in {@link Pokemon#grid}
+     * @return the tile at the given index
+     */
+    public SyncTile getTile(int index) {
+        return tiles[index];
+    }
+
+    /**
+     * Returns the index of the tile at the given position.
+     *
+     * @param x the X position
+     * @param y the Y position
+     * @return the index of the tile, -1 if there is no tile at the given position
+     */
+    public int indexOf(int x, int y) {
+        return indices.getOrDefault(pack(x, y), -1);
+    }
+
+    /**
+     * Returns the indices of the tiles next to the given tile.
+     *
+     * @param index the index of the tile
+     * @return the indices of the tiles next to the given tile
+     */
+    public int[] getNeighbours(int index) {
+        return Arrays.copyOfRange(adjacency, adjacencyStart[index], adjacencyStart[index + 1]);
+    }
+
+    /**
+     * Returns the minimum energy required to unlock the given tile, including the tiles that need to be unlocked before it.
+     *
+     * @param index the index of the tile
+     * @return the minimum energy required, {@link Integer#MAX_VALUE} if the tile is not connected to the Sync Move tile
+     */
+    public int getUnlockCost(int index) {
+        return unlockCost[index];
+    }
+
+    /**
+     * Returns the tiles to be unlocked, in order, to unlock the given tile with the minimum energy.
+     *
+     * @param index the index of the tile
+     * @return the tiles to be unlocked, ending with the given tile, empty if the tile is not connected to the Sync Move tile
+     */
+    public List<SyncTile> getUnlockPath(int index) {
+        if (unlockCost[index] == Integer.MAX_VALUE) return Collections.emptyList();
+        List<SyncTile> tor = new ArrayList<>();
+        for (int i = index; i != -1; i = previous[i])
+            tor.add(tiles[i]);
+        Collections.reverse(tor);
+        return tor;
+    }
+
+    /**
+     * Returns the tiles which can be unlocked, each on its own, with the given energy.
+     *
+     * @param energy the energy available
+     * @return the tiles which can be unlocked, sorted by the energy required
+     */
+    public List<SyncTile> getReachable(int energy) {
+        int count = countReachable(energy);
+        List<SyncTile> tor = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            tor.add(tiles[byCost[i]]);
+        return tor;
+    }
+
+    /**
+     * Returns the amount of tiles which can be unlocked, each on its own, with the given energy.
+     *
+     * @param energy the energy available
+     * @return the amount of tiles which can be unlocked
+     */
+    public int countReachable(int energy) {
+        int low = 0, high = sortedCosts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedCosts[mid] <= energy) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.core.Util;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.SyncTile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the Passive Skills present in the {@link SyncGrid Sync Grids} of many Pokemon,
+ * which finds the grids containing a Passive Skill within a given energy without scanning the tiles.
+ * <br>For each Passive Skill, the grids containing it are stored sorted by the minimum energy required to unlock it,
+ * so a query is a lookup followed by a binary search.
+ * Passive Skills are matched ignoring case and non-alphanumeric characters, like in the {@link net.vplaygames.PM4J.caches.Cache Caches}.
+ * For example:-
+ * <pre><code>
+ *     SyncGridIndex index = new SyncGridIndex(PokemonDataCache.getInstance().getAllPokemon());
+ *     List&lt;SyncGrid&gt; grids = index.find("Critical Strike", 30);
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class SyncGridIndex {
+    private final Map<Pokemon, SyncGrid> grids = new HashMap<>();
+    private final Map<String, Entries> passives = new HashMap<>();
+
+    /**
+     * Constructs the Sync Grids of the given Pokemon and indexes them.
+     *
+     * @param pokemon the Pokemon whose grids are to be indexed
+     */
+    public SyncGridIndex(Collection<Pokemon> pokemon) {
+        Map<String, Map<SyncGrid, Integer>> costs = new HashMap<>();
+        for (Pokemon p : pokemon) {
+            SyncGrid grid = new SyncGrid(p);
+            grids.put(p, grid);
+            for (int i = 0; i < grid.size(); i++) {
+                SyncTile tile = grid.getTile(i);
+                int cost = grid.getUnlockCost(i);
+                if (tile.title.equals(tile.description) || cost == Integer.MAX_VALUE) continue;
+                if (tile.title.contains(":"))
+                    costs.computeIfAbsent(key(tile.title.split(":")[1]), k -> new HashMap<>()).merge(grid, cost, Math::min);
+                costs.computeIfAbsent(key(tile.title), k -> new HashMap<>()).merge(grid, cost, Math::min);
+            }
+        }
+        costs.forEach((passive, byGrid) -> passives.put(passive, new Entries(byGrid)));
+    }
+
+    private static String key(String passive) {
+        return Util.reduceToAlphanumeric(passive).toLowerCase();
+    }
+
+    /**
+     * Returns the Sync Grid of the given Pokemon.
+     *
+     * @param pokemon the Pokemon
+     * @return the Sync Grid of the given Pokemon, {@code null} if it was not indexed
+     */
+    public SyncGrid getGrid(Pokemon pokemon) {
+        return grids.get(pokemon);
+    }
+
+    /**
+     * Returns the Sync Grids containing the given Passive Skill.
+     *
+     * @param passive the name of the Passive Skill
+     * @return the Sync Grids containing the given Passive Skill, sorted by the energy required to unlock it
+     */
+    public List<SyncGrid> find(String passive) {
+        return find(passive, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Returns the Sync Grids in which the given Passive Skill can be unlocked with the given energy.
+     *
+     * @param passive the name of the Passive Skill
+     * @param energy  the energy available
+     * @return the Sync Grids containing the given Passive Skill within the given energy,
+     * sorted by the energy required to unlock it
+     */
+    public List<SyncGrid> find(String passive, int energy) {
+        Entries entries = passives.get(key(passive));
+        if (entries == null) return Collections.emptyList();
+        int low = 0, high = entries.costs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.costs[mid] <= energy) low = mid + 1;
+            else high = mid;
+        }
+        List<SyncGrid> tor = new ArrayList<>(low);
+        for (int i = 0; i < low; i++)
+            tor.add(entries.grids[i]);
+        return tor;
+    }
+
+    private static class Entries {
+        final SyncGrid[] grids;
+        final int[] costs;
+
+        Entries(Map<SyncGrid, Integer> byGrid) {
+            List<Map.Entry<SyncGrid, Integer>> sorted = new ArrayList<>(byGrid.entrySet());
+            sorted.sort(Map.Entry.comparingByValue());
+            grids = new SyncGrid[sorted.size()];
+            costs = new int[sorted.size()];
+            for (int i = 0; i < grids.length; i++) {
+                grids[i] = sorted.get(i).getKey();
+                costs[i] = sorted.get(i).getValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.core.Util;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+/**
+ * Finds the best teams of three Sync Pairs based on their Theme Skills.
+ * <br>A Theme Skill is considered active in a team if its tag is shared by at least
+ * {@link Query#activation(int) a given amount} of members (2 by default).
+ * A {@link Query} can require tags to be shared by a minimum amount of members
+ * and rank the teams by the total value of the active effects whose description contains a given text.
+ * <br>The tags of each Pokemon are stored as a bitset, so checking a team is a few bitwise operations.
+ * The search runs in parallel on the common {@link ForkJoinPool} and skips every team which
+ * can not beat the current top teams, using an upper bound of the value each Pokemon can add.
+ * For example:-
+ * <pre><code>
+ *     TeamBuilder builder = new TeamBuilder(PokemonDataCache.getInstance().getAllPokemon());
+ *     List&lt;TeamBuilder.Team&gt; teams = builder.search(new TeamBuilder.Query()
+ *         .require("Kanto", 2)
+ *         .maximize("Attack"), 10);
+ * </code></pre>
+ *
+ * @author Vaibhav Nargwani
+ * @since 1.1.0
+ */
+public class TeamBuilder {
+    private final Pokemon[] roster;
+    private final Map<String, Integer> tags = new LinkedHashMap<>();
+    private final String[] tagNames;
+    private final int words;
+    private final long[][] tagBits;
+
+    /**
+     * Constructs a new TeamBuilder over the given roster.
+     *
+     * @param roster the Pokemon which can be picked in the teams
+     */
+    public TeamBuilder(Collection<Pokemon> roster) {
+        this.roster = roster.toArray(new Pokemon[0]);
+        for (Pokemon p : this.roster)
+            for (ThemeSkill t : p.themeSkills)
+                tags.putIfAbsent(key(t.tag), tags.size());
+        tagNames = new String[tags.size()];
+        for (Pokemon p : this.roster)
+            for (ThemeSkill t : p.themeSkills)
+                tagNames[tags.get(key(t.tag))] = t.tag;
+        words = Math.max(1, (tags.size() + 63) >>> 6);
+        tagBits = new long[this.roster.length][];
+        for (int i = 0; i < this.roster.length; i++) {
+            tagBits[i] = new long[words];
+            for (ThemeSkill t : this.roster[i].themeSkills)
+                set(tagBits[i], tags.get(key(t.tag)));
+        }
+    }
+
+    private static String key(String tag) {
+        return Util.reduceToAlphanumeric(tag).toLowerCase();
+    }
+
+    private static void set(long[] bits, int bit) {
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    private static boolean get(long[] bits, int bit) {
+        return (bits[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * Finds the best teams matching the given query.
+     *
+     * @param query the constraints and the effect to maximize
+     * @param k     the maximum amount of teams to return
+     * @return the best teams, best first. Teams with the same score are ordered arbitrarily.
+     */
+    public List<Team> search(Query query, int k) {
+        if (k <= 0 || roster.length < 3) return Collections.emptyList();
+        Search search = new Search(query, k);
+        if (search.impossible) return Collections.emptyList();
+        List<Candidate> found = ForkJoinPool.commonPool().invoke(search.new Task(0, roster.length - 2));
+        List<Team> tor = new ArrayList<>(found.size());
+        for (Candidate c : found)
+            tor.add(search.toTeam(c));
+        return tor;
+    }
+
+    // the data of a single call to search, with the roster sorted by the upper bound of the value of each Pokemon
+    private class Search {
+        final int k;
+        final int activation;
+        final Pokemon[] sorted;
+        final long[][] bits;
+        final double[] bound;
+        // the tags and values of the effects to maximize, of each Pokemon
+        final int[][] effectTags;
+        final double[][] effectValues;
+        // the tags required to be shared by at least 1, 2 or 3 members
+        final long[][] required = new long[4][words];
+        final DoubleAccumulator threshold = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+        boolean impossible;
+
+        Search(Query query, int k) {
+            this.k = k;
+            this.activation = query.activation;
+            for (Map.Entry<String, Integer> e : query.required.entrySet()) {
+                Integer bit = tags.get(e.getKey());
+                if (bit == null || e.getValue() > 3)
+                    impossible = true;
+                else
+                    set(required[Math.max(1, e.getValue())], bit);
+            }
+            int n = roster.length;
+            Integer[] order = new Integer[n];
+            double[] rawBound = new double[n];
+            int[][] rawTags = new int[n][];
+            double[][] rawValues = new double[n][];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+                List<Integer> skills = new ArrayList<>();
+                List<Double> values = new ArrayList<>();
+                for (ThemeSkill t : roster[i].themeSkills) {
+                    double value = 0;
+                    if (query.effect != null)
+                        for (ThemeSkill.Effect e : t.effects)
+                            if (e.description.toLowerCase().contains(query.effect) && e.values.length != 0)
+                                value += e.values[Math.min(query.level, e.values.length) - 1];
+                    if (value > 0) {
+                        skills.add(tags.get(key(t.tag)));
+                        values.add(value);
+                    }
+                }
+                rawTags[i] = skills.stream().mapToInt(Integer::intValue).toArray();
+                rawValues[i] = values.stream().mapToDouble(Double::doubleValue).toArray();
+                rawBound[i] = Arrays.stream(rawValues[i]).sum();
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer i) -> rawBound[i]).reversed());
+            sorted = new Pokemon[n];
+            bits = new long[n][];
+            bound = new double[n];
+            effectTags = new int[n][];
+            effectValues = new double[n][];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = roster[order[i]];
+                bits[i] = tagBits[order[i]];
+                bound[i] = rawBound[order[i]];
+                effectTags[i] = rawTags[order[i]];
+                effectValues[i] = rawValues[order[i]];
+            }
+        }
+
+        // the tags shared by at least the given amount of the three members
+        long[] shared(int count, long[] a, long[] b, long[] c, long[] into) {
+            for (int w = 0; w < words; w++) {
+                switch (count) {
+                    case 1:  into[w] = a[w] | b[w] | c[w]; break;
+                    case 2:  into[w] = a[w] & b[w] | a[w] & c[w] | b[w] & c[w]; break;
+                    case 3:  into[w] = a[w] & b[w] & c[w]; break;
+                    default: into[w] = -1;
+                }
+            }
+            return into;
+        }
+
+        boolean feasible(long[] a, long[] b, long[] c, long[] scratch) {
+            for (int count = 1; count <= 3; count++) {
+                long[] have = shared(count, a, b, c, scratch);
+                for (int w = 0; w < words; w++)
+                    if ((required[count][w] & ~have[w]) != 0) return false;
+            }
+            return true;
+        }
+
+        // true if no third member can make the pair feasible
+        boolean hopeless(long[] a, long[] b) {
+            for (int w = 0; w < words; w++) {
+                if ((required[3][w] & ~(a[w] & b[w])) != 0) return true;
+                if ((required[2][w] & ~(a[w] | b[w])) != 0) return true;
+            }
+            return false;
+        }
+
+        double score(int member, long[] active) {
+            double tor = 0;
+            for (int t = 0; t < effectTags[member].length; t++)
+                if (get(active, effectTags[member][t]))
+                    tor += effectValues[member][t];
+            return tor;
+        }
+
+        Team toTeam(Candidate c) {
+            long[] active = shared(activation, bits[c.i], bits[c.j], bits[c.k], new long[words]);
+            List<String> names = new ArrayList<>();
+            for (int t = 0; t < tagNames.length; t++)
+                if (get(active, t)) names.add(tagNames[t]);
+            return new Team(Arrays.asList(sorted[c.i], sorted[c.j], sorted[c.k]), c.score, names);
+        }
+
+        // searches the teams whose first member (in the sorted order) is between from and to
+        class Task extends RecursiveTask<List<Candidate>> {
+            final int from, to;
+
+            Task(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected List<Candidate> compute() {
+                if (to - from > 1) {
+                    int mid = (from + to) >>> 1;
+                    Task left = new Task(from, mid);
+                    left.fork();
+                    List<Candidate> tor = new Task(mid, to).compute();
+                    return merge(tor, left.join());
+                }
+                PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(c -> c.score));
+                if (from < to) search(from, best);
+                return new ArrayList<>(best);
+            }
+
+            List<Candidate> merge(List<Candidate> a, List<Candidate> b) {
+                a.addAll(b);
+                a.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+                return a.size() > k ? new ArrayList<>(a.subList(0, k)) : a;
+            }
+
+            void search(int i, PriorityQueue<Candidate> best) {
+                int n = sorted.length;
+                long[] active = new long[words], scratch = new long[words];
+                for (int w = 0; w < words; w++)
+                    if ((required[3][w] & ~bits[i][w]) != 0) return;
+                for (int j = i + 1; j < n - 1; j++) {
+                    if (bound[i] + bound[j] + bound[j + 1] <= threshold.get()) return;
+                    if (hopeless(bits[i], bits[j])) continue;
+                    for (int l = j + 1; l < n; l++) {
+                        double limit = bound[i] + bound[j] + bound[l];
+                        if (limit <= threshold.get()) break;
+                        if (!feasible(bits[i], bits[j], bits[l], scratch)) continue;
+                        shared(activation, bits[i], bits[j], bits[l], active);
+                        double score = score(i, active) + score(j, active) + score(l, active);
+                        if (best.size() < k) {
+                            best.add(new Candidate(score, i, j, l));
+                        } else if (score > best.peek().score) {
+                            best.poll();
+                            best.add(new Candidate(score, i, j, l));
+                        } else {
+                            continue;
+                        }
+                        if (best.size() == k)
+                            threshold.accumulate(best.peek().score);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Candidate {
+        final double score;
+        final int i, j, k;
+
+        Candidate(double score, int i, int j, int k) {
+            this.score = score;
+            this.i = i;
+            this.j = j;
+            this.k = k;
+        }
+    }
+
+    /**
+     * The constraints and the effect to maximize of a team search.
+     * The tags and the effect are matched ignoring case.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Query {
+        private final Map<String, Integer> required = new HashMap<>();
+        private String effect;
+        private int activation = 2;
+        private int level = Integer.MAX_VALUE;
+
+        /**
+         * Requires the given tag to be shared by at least the given amount of members.
+         *
+         * @param tag      the tag of the Theme Skill
+         * @param minCount the minimum amount of members having the tag, from 1 to 3
+         * @return this instance, useful for chaining.
+         */
+        public Query require(String tag, int minCount) {
+            required.merge(key(tag), minCount, Math::max);
+            return this;
+        }
+
+        /**
+         * Ranks the teams by the total value of the active effects whose description contains the given text.
+         * If not set, all the teams matching the constraints have the same score.
+         *
+         * @param effect the text to search for in the descriptions of the effects
+         * @return this instance, useful for chaining.
+         */
+        public Query maximize(String effect) {
+            this.effect = effect == null ? null : effect.toLowerCase();
+            return this;
+        }
+
+        /**
+         * Sets the amount of members which must share a tag for its Theme Skills to be active, 2 by default.
+         *
+         * @param activation the amount of members, from 1 to 3
+         * @return this instance, useful for chaining.
+         */
+        public Query activation(int activation) {
+            this.activation = Math.max(1, Math.min(3, activation));
+            return this;
+        }
+
+        /**
+         * Sets the level of the Theme Skills whose values are used, the maximum level by default.
+         *
+         * @param level the level of the Theme Skills, starting from 1
+         * @return this instance, useful for chaining.
+         */
+        public Query level(int level) {
+            this.level = Math.max(1, level);
+            return this;
+        }
+    }
+
+    /**
+     * A team found by a {@link TeamBuilder}.
+     * <br>All of this class's variables are {@code public final} i.e. available without the use of getters
+     * but not assignable.
+     *
+     * @author Vaibhav Nargwani
+     * @since 1.1.0
+     */
+    public static class Team {
+        /** The members of this team. */
+        public final List<Pokemon> members;
+        /** The total value of the active effects matching the query. */
+        public final double score;
+        /** The tags of the Theme Skills active in this team. */
+        public final List<String> activeTags;
+
+        Team(List<Pokemon> members, double score, List<String> activeTags) {
+            this.members = Collections.unmodifiableList(members);
+            this.score = score;
+            this.activeTags = Collections.unmodifiableList(activeTags);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder tor = new StringBuilder("Team{score=").append(score).append(", members=[");
+            for (int i = 0; i < members.size(); i++)
+                tor.append(i == 0 ? "" : ", ").append(members.get(i).syncPair);
+            return tor.append("], activeTags=").append(activeTags).append("}").toString();
+        }
+    }
+}
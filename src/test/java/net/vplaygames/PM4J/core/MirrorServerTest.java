@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.core;
+
+import net.vplaygames.PM4J.caches.PokemasDBCache;
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.StatRange;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+import net.vplaygames.PM4J.entities.Trainer;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class MirrorServerTest {
+    @After
+    public void clearCaches() {
+        PokemasDBCache.getInstance().clearCaches();
+    }
+
+    private static Trainer trainer() {
+        Move move = new Move("Thunder \"Bolt\"", "Electric", "Special", 80, 100, "One Opponent", 2, 5, "May paralyze\\stun\n");
+        Pokemon pokemon = new Pokemon("Pikachu", "Red", "Red & Pikachu", new String[]{"Electric"}, "Ground", "Strike", 5, "M",
+            new String[0], true,
+            new StatRange(new Stats(1, 2, 3, 4, 5, 6, 7), new Stats(10, 20, 30, 40, 50, 60, 70)),
+            new SyncMove("Zap", "Electric", "Special", 100, "One Opponent", "Tab\there"),
+            Collections.singletonList(move),
+            Collections.singletonList(new Passive("Attack Up 3", "Raises the \"Attack\" stat.")),
+            Collections.singletonList(new ThemeSkill("Kanto: Strike", "Kanto", "Strike", "-",
+                Collections.singletonList(new ThemeSkill.Effect("Attack", new int[]{1, 2, 3})))),
+            Collections.singletonList(new SyncTile("Critical Strike 9- Raises the critical-hit rate.", 1, 12, 3, -2, 5)));
+        return new Trainer("Red", new String[]{"Pikachu"}).add(pokemon);
+    }
+
+    @Test
+    public void servedTrainersParseBack() throws Exception {
+        try (MirrorServer server = new MirrorServer(0)) {
+            server.load(Arrays.asList(trainer(), new Trainer("Nobody", new String[0]))).start();
+            Connection connection = new Connection(new OkHttpClient(), server.getBaseURL());
+            String data = connection.requestTrainer("Red");
+            PokemasDBCache.getInstance().clearCaches();
+            Trainer parsed = Trainer.parse(data);
+            Pokemon pokemon = parsed.pokemonData.get(0);
+            assertEquals("Red", parsed.name);
+            assertEquals("Pikachu", pokemon.name);
+            assertArrayEquals(new String[0], pokemon.otherForms);
+            assertEquals("Thunder \"Bolt\"", pokemon.moves.get(0).name);
+            assertEquals("May paralyze\\stun\n", pokemon.moves.get(0).effect);
+            assertEquals("Tab\there", pokemon.syncMove.description);
+            assertEquals("Raises the \"Attack\" stat.", pokemon.passives.get(0).description);
+        }
+    }
+
+    @Test
+    public void servedListParsesBack() throws Exception {
+        try (MirrorServer server = new MirrorServer(0)) {
+            server.load(Arrays.asList(trainer(), new Trainer("Nobody", new String[0]))).start();
+            Connection connection = new Connection(new OkHttpClient(), server.getBaseURL());
+            List<String> names = connection.requestTrainerNames();
+            assertEquals(Arrays.asList("Red", "Nobody"), names);
+            assertEquals(0, Trainer.parse(connection.requestTrainer("Nobody")).pokemonData.size());
+        }
+    }
+
+    private static HttpURLConnection request(MirrorServer server, String encoding, String etag) throws Exception {
+        HttpURLConnection tor = (HttpURLConnection) new URL(server.getBaseURL() + "Red").openConnection();
+        tor.setRequestProperty("Accept-Encoding", encoding);
+        if (etag != null) tor.setRequestProperty("If-None-Match", etag);
+        return tor;
+    }
+
+    @Test
+    public void eachEncodingHasItsOwnEtag() throws Exception {
+        try (MirrorServer server = new MirrorServer(0)) {
+            server.load(Collections.singletonList(trainer())).start();
+            String identity = request(server, "identity", null).getHeaderField("ETag");
+            String gzip = request(server, "gzip", null).getHeaderField("ETag");
+            assertNotEquals(identity, gzip);
+            assertEquals(304, request(server, "gzip", gzip).getResponseCode());
+            assertEquals(200, request(server, "gzip", identity).getResponseCode());
+            assertEquals(200, request(server, "identity", gzip).getResponseCode());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.caches.PokemasDBCache;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class BinaryReaderTest {
+    @After
+    public void clearCaches() {
+        PokemasDBCache.getInstance().clearCaches();
+    }
+
+    private static byte[] snapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter.writeAll(BinaryWriterTest.roster(), out);
+        return out.toByteArray();
+    }
+
+    // the header, the marker of a Trainer and a new string for its name, followed by the given length
+    private static byte[] withLength(int... length) {
+        ByteArrayOutputStream tor = new ByteArrayOutputStream();
+        tor.write(BinaryWriter.MAGIC, 0, BinaryWriter.MAGIC.length);
+        tor.write(BinaryWriter.VERSION);
+        tor.write(1);
+        tor.write(1);
+        for (int b : length)
+            tor.write(b);
+        return tor.toByteArray();
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            BinaryReader.validate(bytes);
+        } catch (IOException e) {
+            return;
+        }
+        fail("Accepted " + bytes.length + " corrupt bytes");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNegativeLengths() throws Exception {
+        BinaryReader.validate(withLength(0xFF, 0xFF, 0xFF, 0xFF, 0x0F));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLengthsLongerThanTheStream() throws Exception {
+        BinaryReader.validate(withLength(0xFF, 0xFF, 0xFF, 0xFF, 0x07));
+    }
+
+    @Test(expected = IOException.class)
+    public void readingLongLengthsFromAStreamFailsWithoutAllocatingThem() throws Exception {
+        BinaryReader.readAll(new ByteArrayInputStream(withLength(0xFF, 0xFF, 0xFF, 0xFF, 0x07)));
+    }
+
+    @Test
+    public void rejectsTruncatedSnapshots() throws Exception {
+        byte[] snapshot = snapshot();
+        for (int length = 0; length < snapshot.length; length += 7)
+            assertRejected(Arrays.copyOf(snapshot, length));
+    }
+
+    @Test
+    public void corruptSnapshotsFailOnlyWithIOExceptions() throws Exception {
+        byte[] snapshot = snapshot();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            byte[] corrupt = snapshot.clone();
+            corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+            try {
+                BinaryReader.validate(corrupt);
+            } catch (IOException e) {
+                // rejected, as it should be when the corruption is noticed
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.io;
+
+import net.vplaygames.PM4J.caches.PokemasDBCache;
+import net.vplaygames.PM4J.entities.Move;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.StatRange;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import net.vplaygames.PM4J.entities.SyncTile;
+import net.vplaygames.PM4J.entities.ThemeSkill;
+import net.vplaygames.PM4J.entities.Trainer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryWriterTest {
+    private static final String[] TYPES = {"Fire", "Water", "Grass", "Electric", "Psychic", "Dragon"};
+    private static final String[] ROLES = {"Strike", "Tech", "Support"};
+
+    @After
+    public void clearCaches() {
+        PokemasDBCache.getInstance().clearCaches();
+    }
+
+    // a roster shaped like the real one: many Pokemon sharing a few moves, passives and theme skills,
+    // each with a grid of tiles whose bonuses repeat across the Pokemon
+    static List<Trainer> roster() {
+        List<Trainer> tor = new ArrayList<>();
+        for (int t = 0; t < 40; t++) {
+            Trainer trainer = new Trainer("Trainer " + t, new String[]{"Pokemon " + t + "-0", "Pokemon " + t + "-1"});
+            for (int i = 0; i < 2; i++) {
+                String type = TYPES[(t + i) % TYPES.length];
+                List<Move> moves = new ArrayList<>();
+                for (int m = 0; m < 4; m++)
+                    moves.add(new Move(type + " Move " + (t * 2 + i + m) % 12, type, m % 2 == 0 ? "Physical" : "Special",
+                        60 + 10 * m, 100, "An opponent", m + 1, 0, "Deals damage to the target. May lower its " + TYPES[m] + " resistance."));
+                List<SyncTile> grid = new ArrayList<>();
+                for (int g = 0; g < 24; g++)
+                    grid.add(new SyncTile("Attack +" + (g % 5 + 1) + "- Increases the Attack of the sync pair by " + (g % 5 + 1) + ".",
+                        g % 4 + 1, g % 6 + 2, g / 8 + 1, g % 5 - 2, g / 5 - 2));
+                Pokemon pokemon = new Pokemon("Pokemon " + t + "-" + i, trainer.name, trainer.name + " & Pokemon " + t + "-" + i,
+                    new String[]{type}, TYPES[(t + i + 3) % TYPES.length], ROLES[(t + i) % ROLES.length], 5, "M", new String[0], t % 3 == 0,
+                    new StatRange(new Stats(300 + t, 120, 100, 90, 80, 70, 0), new Stats(600 + t, 240, 200, 180, 160, 140, 0)),
+                    new SyncMove(type + " Sync Move " + t, type, "Special", 150, "An opponent", "Deals a lot of damage to the target."),
+                    moves,
+                    Arrays.asList(new Passive("Attack Up " + (t % 3 + 1), "Raises the Attack of the sync pair."),
+                        new Passive(type + " Boost 2", "Increases the power of " + type + "-type moves.")),
+                    Collections.singletonList(new ThemeSkill("Kanto: " + ROLES[(t + i) % ROLES.length], "Kanto", ROLES[(t + i) % ROLES.length],
+                        "When the sync pair is in a team of Kanto sync pairs", Collections.singletonList(new ThemeSkill.Effect("Attack", new int[]{10, 20, 30})))),
+                    grid);
+                trainer.add(pokemon);
+            }
+            tor.add(trainer);
+        }
+        return tor;
+    }
+
+    private static String json(List<Trainer> trainers) {
+        StringBuilder tor = new StringBuilder();
+        for (Trainer trainer : trainers)
+            tor.append(trainer.toJSONString());
+        return tor.toString();
+    }
+
+    @Test
+    public void readsBackWhatWasWritten() throws Exception {
+        List<Trainer> trainers = roster();
+        String json = json(trainers);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter.writeAll(trainers, out);
+        PokemasDBCache.getInstance().clearCaches();
+        List<Trainer> read = BinaryReader.readAll(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(json, json(read));
+    }
+
+    @Test
+    public void isMuchSmallerThanJson() throws Exception {
+        List<Trainer> trainers = roster();
+        int json = json(trainers).getBytes(StandardCharsets.UTF_8).length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter.writeAll(trainers, out);
+        assertTrue(out.size() * 10 < json);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotWriteAfterFinishing() throws Exception {
+        BinaryWriter writer = new BinaryWriter(new ByteArrayOutputStream());
+        writer.finish();
+        writer.write(new Trainer("Red", new String[0]));
+    }
+}
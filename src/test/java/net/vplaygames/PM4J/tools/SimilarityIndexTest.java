@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020-2021 Vaibhav Nargwani
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vplaygames.PM4J.tools;
+
+import net.vplaygames.PM4J.caches.PokemasDBCache;
+import net.vplaygames.PM4J.entities.Passive;
+import net.vplaygames.PM4J.entities.Pokemon;
+import net.vplaygames.PM4J.entities.StatRange;
+import net.vplaygames.PM4J.entities.Stats;
+import net.vplaygames.PM4J.entities.SyncMove;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SimilarityIndexTest {
+    @After
+    public void clearCaches() {
+        PokemasDBCache.getInstance().clearCaches();
+    }
+
+    private static Pokemon pokemon(String name, int hp, String passive) {
+        Stats stats = new Stats(hp, 200, 150, 100, 150, 120, 0);
+        return new Pokemon(name, "Trainer", "Trainer & " + name, new String[]{"Fire"}, "Water", "Strike", 5, "M", new String[0], false,
+            new StatRange(stats, stats), new SyncMove(name + " Sync Move", "Fire", "Special", 150, "An opponent", "-"),
+            new ArrayList<>(), Collections.singletonList(new Passive(passive, "-")), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    public void euclideanTellsNearDuplicatesApart() {
+        List<Pokemon> roster = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            roster.add(pokemon("Filler " + i, 300 + 20 * i, "Skill " + i % 7 + " 1"));
+        Pokemon a = pokemon("A", 5000, "Attack Up 1");
+        Pokemon farther = pokemon("Farther", 5002, "Attack Up 1");
+        Pokemon nearer = pokemon("Nearer", 5001, "Attack Up 1");
+        roster.add(a);
+        roster.add(farther);
+        roster.add(nearer);
+        List<SimilarityIndex.Match> matches = new SimilarityIndex(roster).nearest(a, 2, SimilarityIndex.Metric.EUCLIDEAN);
+        assertSame(nearer, matches.get(0).pokemon);
+        assertSame(farther, matches.get(1).pokemon);
+        assertTrue(matches.get(0).score > 0);
+        assertTrue(matches.get(0).score < matches.get(1).score);
+    }
+
+    @Test
+    public void aPokemonIsNotItsOwnMatch() {
+        List<Pokemon> roster = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            roster.add(pokemon("Pokemon " + i, 300 + 20 * i, "Skill " + i + " 1"));
+        for (SimilarityIndex.Metric metric : SimilarityIndex.Metric.values()) {
+            List<SimilarityIndex.Match> matches = new SimilarityIndex(roster).nearest(roster.get(3), 20, metric);
+            assertEquals(9, matches.size());
+            for (SimilarityIndex.Match match : matches)
+                assertTrue(match.pokemon != roster.get(3));
+        }
+    }
+}